@@ -51,26 +51,41 @@ class Auditing {
 	 */
 	protected static DBObject copyToHistoryCollection(DBObject dbo, DBCollection historyCollection) {
 		if (historyCollection != null) {
-			// clone the dbo
-			BasicDBObject clone = new BasicDBObject();
-			clone.putAll(dbo);
-			Auditing.renameIdField(clone);
-			Auditing.increaseVersion(clone);
-			historyCollection.insert(clone);
-			
-			DBObject result = dbo;
-			if (result instanceof LazyBSONObject) {
-				// materialize lazy bson
-				BasicDBObject expanded = new BasicDBObject();
-				expanded.putAll(result);
-				result = expanded;
-			}
-			Auditing.increaseVersion(result);
-			return result;
+			historyCollection.insert(Auditing.createHistoryDocument(dbo));
+			return Auditing.createNextVersion(dbo);
 		}
 		return dbo;
 	}
 
+	/**
+	 * @param dbo the original json object
+	 * @return a copy of the json object to be stored in the history collection, referencing the original document
+	 */
+	protected static DBObject createHistoryDocument(DBObject dbo) {
+		// clone the dbo
+		BasicDBObject clone = new BasicDBObject();
+		clone.putAll(dbo);
+		Auditing.renameIdField(clone);
+		Auditing.increaseVersion(clone);
+		return clone;
+	}
+
+	/**
+	 * @param dbo the original json object
+	 * @return the json object with increased version, copied if it is a lazy initialized document
+	 */
+	protected static DBObject createNextVersion(DBObject dbo) {
+		DBObject result = dbo;
+		if (result instanceof LazyBSONObject) {
+			// materialize lazy bson
+			BasicDBObject expanded = new BasicDBObject();
+			expanded.putAll(result);
+			result = expanded;
+		}
+		Auditing.increaseVersion(result);
+		return result;
+	}
+
 	/**
 	 * Increases the version of a given versionable object
 	 *
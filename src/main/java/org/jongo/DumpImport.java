@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jongo.bson.BsonDBEncoder;
+import org.jongo.bson.BsonDumpReader;
+import org.jongo.bson.ByteBufferBsonDocument;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.LazyDBCallback;
+import com.mongodb.LazyDBObject;
+import com.mongodb.WriteConcern;
+
+/**
+ * Restores the documents of a mongodump file, inserted by batches bounded in size and count.
+ * <p/>
+ * Documents are copied from the mapped file into a batch buffer reused from one batch to the next, then inserted
+ * as lazy objects written as is by {@link BsonDBEncoder}: the driver checks the keys of any other object.
+ * They are only decoded when they have no _id for the driver to generate, or to be copied into the history collection.
+ * History documents are inserted by batch as well, before the documents of the batch.
+ */
+class DumpImport {
+
+	private static final int BATCH_SIZE = 16 * 1024 * 1024;
+	private static final int BATCH_COUNT = 1000;
+
+	private final DBCollection collection;
+	private final DBCollection historyCollection;
+	private final WriteConcern writeConcern;
+	private final int batchSize;
+	private final int batchCount;
+	private final List<DBObject> historyDbos = new ArrayList<DBObject>();
+
+
+	DumpImport(DBCollection collection, DBCollection historyCollection, WriteConcern writeConcern) {
+		this(collection, historyCollection, writeConcern, BATCH_SIZE, BATCH_COUNT);
+	}
+
+	DumpImport(DBCollection collection, DBCollection historyCollection, WriteConcern writeConcern, int batchSize, int batchCount) {
+		this.collection = collection;
+		this.historyCollection = historyCollection;
+		this.writeConcern = writeConcern;
+		this.batchSize = batchSize;
+		this.batchCount = batchCount;
+	}
+
+	public long importDump(Path dump) throws IOException {
+		BsonDumpReader reader = new BsonDumpReader(dump);
+		try {
+			return this.importDocuments(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	private long importDocuments(Iterator<ByteBufferBsonDocument> documents) {
+		LazyDBCallback callback = new LazyDBCallback(this.collection);
+		byte[] batch = new byte[this.batchSize];
+		List<DBObject> dbos = new ArrayList<DBObject>();
+		int batchLength = 0;
+		long count = 0;
+		while (documents.hasNext()) {
+			ByteBufferBsonDocument document = documents.next();
+			int size = document.getSize();
+			if (!dbos.isEmpty() && (batchLength + size > batch.length || dbos.size() == this.batchCount)) {
+				this.insert(dbos);
+				batchLength = 0;
+			}
+			byte[] bytes = batch;
+			int offset = batchLength;
+			if (size > batch.length) {
+				// larger than the server accepts, left for it to reject
+				bytes = new byte[size];
+				offset = 0;
+			} else {
+				batchLength += size;
+			}
+			document.toByteBuffer().get(bytes, offset, size);
+			dbos.add(this.prepare(new LazyDBObject(bytes, offset, callback)));
+			count++;
+		}
+		if (!dbos.isEmpty()) {
+			this.insert(dbos);
+		}
+		return count;
+	}
+
+	private DBObject prepare(DBObject dbo) {
+		if (!dbo.containsField(MongoCollection.MONGO_DOCUMENT_ID_NAME)) {
+			// the driver generates missing ids, lazy objects are read only
+			BasicDBObject expanded = new BasicDBObject();
+			expanded.putAll(dbo);
+			dbo = expanded;
+		}
+		if (this.historyCollection == null) {
+			return dbo;
+		}
+		this.historyDbos.add(Auditing.createHistoryDocument(dbo));
+		return Auditing.createNextVersion(dbo);
+	}
+
+	private void insert(List<DBObject> dbos) {
+		if (!this.historyDbos.isEmpty()) {
+			this.historyCollection.insert(this.historyDbos);
+			this.historyDbos.clear();
+		}
+		this.collection.insert(dbos, this.writeConcern, BsonDBEncoder.FACTORY.create());
+		// the batch buffer is about to be overwritten
+		dbos.clear();
+	}
+}
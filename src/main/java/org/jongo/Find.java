@@ -40,11 +40,15 @@ public class Find {
     private Query fields;
 
     Find(DBCollection collection, ReadPreference readPreference, Unmarshaller unmarshaller, QueryFactory queryFactory, String query, Object... parameters) {
+        this(collection, readPreference, unmarshaller, queryFactory, queryFactory.createQuery(query, parameters));
+    }
+
+    Find(DBCollection collection, ReadPreference readPreference, Unmarshaller unmarshaller, QueryFactory queryFactory, Query query) {
         this.readPreference = readPreference;
         this.unmarshaller = unmarshaller;
         this.collection = collection;
         this.queryFactory = queryFactory;
-        this.query = this.queryFactory.createQuery(query, parameters);
+        this.query = query;
         this.modifiers = new ArrayList<QueryModifier>();
     }
 
@@ -52,12 +56,23 @@ public class Find {
         return map(newResultHandler(clazz, unmarshaller));
     }
 
+    /**
+     * Reads every result into the same reusable instance, instead of a new one, when the unmarshaller is
+     * an {@link org.jongo.marshall.UpdatingUnmarshaller}.
+     * <p/>
+     * Each result is only valid until the next one is read: properties missing from a document keep the
+     * value of the previous result, and the cursor cannot be iterated concurrently.
+     */
+    public <T> MongoCursor<T> as(final Class<T> clazz, final T reusable) {
+        return map(newResultHandler(clazz, reusable, unmarshaller));
+    }
+
     public <T> MongoCursor<T> map(ResultHandler<T> resultHandler) {
         DBCursor cursor = new DBCursor(collection, query.toDBObject(), getFieldsAsDBObject(), readPreference);
         for (QueryModifier modifier : modifiers) {
             modifier.modify(cursor);
         }
-        return new MongoCursor<T>(cursor, resultHandler);
+        return new MongoCursor<T>(cursor, resultHandler, QueryExecution.getStats(query));
     }
 
     public Find projection(String fields) {
@@ -70,6 +85,11 @@ public class Find {
         return this;
     }
 
+    Find fields(Query fields) {
+        this.fields = fields;
+        return this;
+    }
+
     public Find limit(final int limit) {
         this.modifiers.add(new QueryModifier() {
             public void modify(DBCursor cursor) {
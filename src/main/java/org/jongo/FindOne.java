@@ -47,7 +47,14 @@ public class FindOne {
     }
 
     public <T> T map(ResultHandler<T> resultHandler) {
-        DBObject result = collection.findOne(query.toDBObject(), getFieldsAsDBObject(), getOrderByAsDBObject(), readPreference);
+        QueryExecution execution = QueryExecution.start(query);
+        DBObject result;
+        try {
+            result = collection.findOne(query.toDBObject(), getFieldsAsDBObject(), getOrderByAsDBObject(), readPreference);
+        } finally {
+            execution.done();
+        }
+        execution.document(result);
         return result == null ? null : resultHandler.map(result);
     }
 
@@ -20,6 +20,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.bson.LazyBSONCallback;
+import org.bson.LazyBSONObject;
 import org.bson.types.ObjectId;
 import org.jongo.bson.Bson;
 import org.jongo.bson.BsonDocument;
@@ -27,6 +28,7 @@ import org.jongo.marshall.Marshaller;
 import org.jongo.query.QueryFactory;
 
 import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import com.mongodb.LazyDBObject;
@@ -84,6 +86,12 @@ class Insert {
 			return this.insert(((BasicDBList) dbo).toArray());
 		}
 
+		if ((dbo instanceof LazyBSONObject) && !dbo.containsField(MongoCollection.MONGO_DOCUMENT_ID_NAME)) {
+			// the driver generates missing ids, lazy objects are read only
+			BasicDBObject expanded = new BasicDBObject();
+			expanded.putAll(dbo);
+			dbo = expanded;
+		}
 		dbo = Auditing.copyToHistoryCollection(dbo, this.historyCollection);
 
 		return this.collection.insert(dbo, this.writeConcern);
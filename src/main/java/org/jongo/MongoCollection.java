@@ -16,7 +16,13 @@
 
 package org.jongo;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
 import org.bson.types.ObjectId;
+import org.jongo.query.PreparedQueries;
+import org.jongo.query.PreparedQuery;
 import org.jongo.query.Query;
 
 import com.mongodb.DBCollection;
@@ -115,8 +121,15 @@ public class MongoCollection {
 	}
 
 	public long count(String query, Object... parameters) {
-		DBObject dbQuery = this.createQuery(query, parameters).toDBObject();
-		return this.collection.getCount(dbQuery, null, this.readPreference);
+		Query dbQuery = this.createQuery(query, parameters);
+		QueryExecution execution = QueryExecution.start(dbQuery);
+		long count;
+		try {
+			count = this.collection.getCount(dbQuery.toDBObject(), null, this.readPreference);
+		} finally {
+			execution.done();
+		}
+		return count;
 	}
 
 	public Update update(String query) {
@@ -154,6 +167,19 @@ public class MongoCollection {
 		return new Insert(this.collection, this.historyCollection, this.writeConcern, this.mapper.getMarshaller(), this.mapper.getObjectIdUpdater(), this.mapper.getQueryFactory()).insert(query, parameters);
 	}
 
+	/**
+	 * Inserts the documents of a BSON file written by mongodump, without decoding them.
+	 *
+	 * @return the number of documents inserted
+	 */
+	public long importDump(Path dump) throws IOException {
+		return new DumpImport(this.collection, this.historyCollection, this.writeConcern).importDump(dump);
+	}
+
+	public long importDump(File dump) throws IOException {
+		return this.importDump(dump.toPath());
+	}
+
 	public WriteResult remove(ObjectId id) {
 		return this.remove("{" + MongoCollection.MONGO_DOCUMENT_ID_NAME + ":#}", id);
 	}
@@ -167,7 +193,31 @@ public class MongoCollection {
 	}
 
 	public WriteResult remove(String query, Object... parameters) {
-		return this.collection.remove(this.createQuery(query, parameters).toDBObject(), this.writeConcern);
+		Query dbQuery = this.createQuery(query, parameters);
+		QueryExecution execution = QueryExecution.start(dbQuery);
+		WriteResult writeResult;
+		try {
+			writeResult = this.collection.remove(dbQuery.toDBObject(), this.writeConcern);
+		} finally {
+			execution.done();
+		}
+		return writeResult;
+	}
+
+	public PreparedFind prepareFind(String query) {
+		return new PreparedFind(this.collection, this.readPreference, this.mapper.getUnmarshaller(), this.mapper.getQueryFactory(), this.prepareQuery(query));
+	}
+
+	public PreparedCount prepareCount(String query) {
+		return new PreparedCount(this.collection, this.readPreference, this.prepareQuery(query));
+	}
+
+	public PreparedUpdate prepareUpdate(String query, String modifier) {
+		return new PreparedUpdate(this.collection, this.writeConcern, this.prepareQuery(query), this.prepareQuery(modifier));
+	}
+
+	public PreparedRemove prepareRemove(String query) {
+		return new PreparedRemove(this.collection, this.writeConcern, this.prepareQuery(query));
 	}
 
 	public Distinct distinct(String key) {
@@ -214,6 +264,10 @@ public class MongoCollection {
 		return this.mapper.getQueryFactory().createQuery(query, parameters);
 	}
 
+	private PreparedQuery prepareQuery(String query) {
+		return PreparedQueries.prepare(this.mapper.getQueryFactory(), query);
+	}
+
 	@Override
 	public String toString() {
 		if (this.collection != null) {
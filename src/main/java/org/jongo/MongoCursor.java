@@ -18,6 +18,7 @@ package org.jongo;
 
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import org.jongo.stats.QueryShapeStats;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -28,33 +29,71 @@ public class MongoCursor<E> implements Iterator<E>, Iterable<E>, Closeable {
 
     private final DBCursor cursor;
     private final ResultHandler<E> resultHandler;
+    private final QueryShapeStats stats;
+    private long executionNanos;
+    private boolean recorded;
 
     public MongoCursor(DBCursor cursor, ResultHandler<E> resultHandler) {
+        this(cursor, resultHandler, null);
+    }
+
+    MongoCursor(DBCursor cursor, ResultHandler<E> resultHandler, QueryShapeStats stats) {
         this.cursor = cursor;
         this.resultHandler = resultHandler;
+        this.stats = stats;
     }
 
     public boolean hasNext() {
-        return cursor.hasNext();
+        if (stats == null) {
+            return cursor.hasNext();
+        }
+        long start = System.nanoTime();
+        boolean hasNext = cursor.hasNext();
+        executionNanos += System.nanoTime() - start;
+        if (!hasNext) {
+            recordExecution();
+        }
+        return hasNext;
     }
 
     public E next() {
         if (!hasNext())
             throw new NoSuchElementException();
 
-        DBObject dbObject = cursor.next();
+        DBObject dbObject = nextDBObject();
         return resultHandler.map(dbObject);
     }
 
+    private DBObject nextDBObject() {
+        if (stats == null) {
+            return cursor.next();
+        }
+        long start = System.nanoTime();
+        DBObject dbObject = cursor.next();
+        executionNanos += System.nanoTime() - start;
+        QueryExecution.recordDocument(stats, dbObject);
+        return dbObject;
+    }
+
+    private void recordExecution() {
+        if (!recorded) {
+            recorded = true;
+            stats.recordExecution(executionNanos);
+        }
+    }
+
     public void remove() {
         throw new UnsupportedOperationException("remove() method is not supported");
     }
 
     public Iterator<E> iterator() {
-        return new MongoCursor<E>(cursor.copy(), resultHandler);
+        return new MongoCursor<E>(cursor.copy(), resultHandler, stats);
     }
 
     public void close() throws IOException {
+        if (stats != null) {
+            recordExecution();
+        }
         cursor.close();
     }
 
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import com.mongodb.DBCollection;
+import com.mongodb.ReadPreference;
+import org.jongo.query.PreparedQuery;
+import org.jongo.query.Query;
+
+/**
+ * A count whose query is parsed once. It can be shared between threads.
+ */
+public class PreparedCount {
+
+    private final DBCollection collection;
+    private final ReadPreference readPreference;
+    private final PreparedQuery query;
+
+    PreparedCount(DBCollection collection, ReadPreference readPreference, PreparedQuery query) {
+        this.collection = collection;
+        this.readPreference = readPreference;
+        this.query = query;
+    }
+
+    public long execute(Object... parameters) {
+        Query bound = query.bind(parameters);
+        QueryExecution execution = QueryExecution.start(bound);
+        long count;
+        try {
+            count = collection.getCount(bound.toDBObject(), null, readPreference);
+        } finally {
+            execution.done();
+        }
+        return count;
+    }
+
+    public int getParameterCount() {
+        return query.getParameterCount();
+    }
+}
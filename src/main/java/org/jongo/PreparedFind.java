@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import org.jongo.marshall.Unmarshaller;
+import org.jongo.query.PreparedQuery;
+import org.jongo.query.Query;
+import org.jongo.query.QueryFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A find whose query, projection, sort and hint are parsed once.
+ * Once configured, it can be shared between threads and executed with new parameters.
+ */
+public class PreparedFind {
+
+    private final DBCollection collection;
+    private final ReadPreference readPreference;
+    private final Unmarshaller unmarshaller;
+    private final QueryFactory queryFactory;
+    private final PreparedQuery query;
+    private final List<QueryModifier> modifiers;
+    private volatile Query fields;
+
+    PreparedFind(DBCollection collection, ReadPreference readPreference, Unmarshaller unmarshaller, QueryFactory queryFactory, PreparedQuery query) {
+        this.collection = collection;
+        this.readPreference = readPreference;
+        this.unmarshaller = unmarshaller;
+        this.queryFactory = queryFactory;
+        this.query = query;
+        this.modifiers = new CopyOnWriteArrayList<QueryModifier>();
+    }
+
+    public Find execute(Object... parameters) {
+        Find find = new Find(collection, readPreference, unmarshaller, queryFactory, query.bind(parameters));
+        find.fields(fields);
+        for (QueryModifier modifier : modifiers) {
+            find.with(modifier);
+        }
+        return find;
+    }
+
+    public int getParameterCount() {
+        return query.getParameterCount();
+    }
+
+    public PreparedFind projection(String fields) {
+        this.fields = queryFactory.createQuery(fields);
+        return this;
+    }
+
+    public PreparedFind projection(String fields, Object... parameters) {
+        this.fields = queryFactory.createQuery(fields, parameters);
+        return this;
+    }
+
+    public PreparedFind limit(final int limit) {
+        this.modifiers.add(new QueryModifier() {
+            public void modify(DBCursor cursor) {
+                cursor.limit(limit);
+            }
+        });
+        return this;
+    }
+
+    public PreparedFind skip(final int skip) {
+        this.modifiers.add(new QueryModifier() {
+            public void modify(DBCursor cursor) {
+                cursor.skip(skip);
+            }
+        });
+        return this;
+    }
+
+    public PreparedFind sort(String sort) {
+        final DBObject sortDBObject = queryFactory.createQuery(sort).toDBObject();
+        this.modifiers.add(new QueryModifier() {
+            public void modify(DBCursor cursor) {
+                cursor.sort(sortDBObject);
+            }
+        });
+        return this;
+    }
+
+    public PreparedFind hint(String hint) {
+        final DBObject hintDBObject = queryFactory.createQuery(hint).toDBObject();
+        this.modifiers.add(new QueryModifier() {
+            public void modify(DBCursor cursor) {
+                cursor.hint(hintDBObject);
+            }
+        });
+        return this;
+    }
+
+    public PreparedFind with(QueryModifier queryModifier) {
+        this.modifiers.add(queryModifier);
+        return this;
+    }
+}
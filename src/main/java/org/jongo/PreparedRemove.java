@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import com.mongodb.DBCollection;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
+import org.jongo.query.PreparedQuery;
+import org.jongo.query.Query;
+
+/**
+ * A remove whose query is parsed once. It can be shared between threads.
+ */
+public class PreparedRemove {
+
+    private final DBCollection collection;
+    private final WriteConcern writeConcern;
+    private final PreparedQuery query;
+
+    PreparedRemove(DBCollection collection, WriteConcern writeConcern, PreparedQuery query) {
+        this.collection = collection;
+        this.writeConcern = writeConcern;
+        this.query = query;
+    }
+
+    public WriteResult execute(Object... parameters) {
+        Query bound = query.bind(parameters);
+        QueryExecution execution = QueryExecution.start(bound);
+        WriteResult writeResult;
+        try {
+            writeResult = collection.remove(bound.toDBObject(), writeConcern);
+        } finally {
+            execution.done();
+        }
+        return writeResult;
+    }
+
+    public int getParameterCount() {
+        return query.getParameterCount();
+    }
+}
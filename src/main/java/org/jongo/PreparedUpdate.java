@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.WriteConcern;
+import com.mongodb.WriteResult;
+import org.jongo.query.PreparedQuery;
+import org.jongo.query.Query;
+
+/**
+ * An update whose query and modifier are parsed once.
+ * Once configured, it can be shared between threads and executed with new parameters:
+ * parameters of the query come first, followed by parameters of the modifier.
+ */
+public class PreparedUpdate {
+
+    private static final Object[] NO_PARAMETERS = {};
+
+    private final DBCollection collection;
+    private final WriteConcern writeConcern;
+    private final PreparedQuery query;
+    private final PreparedQuery modifier;
+    private volatile boolean upsert = false;
+    private volatile boolean multi = false;
+
+    PreparedUpdate(DBCollection collection, WriteConcern writeConcern, PreparedQuery query, PreparedQuery modifier) {
+        this.collection = collection;
+        this.writeConcern = writeConcern;
+        this.query = query;
+        this.modifier = modifier;
+    }
+
+    public WriteResult execute(Object... parameters) {
+        if (parameters == null) {
+            parameters = new Object[]{null};
+        }
+        int queryParameterCount = query.getParameterCount();
+        if (parameters.length < queryParameterCount) {
+            throw new IllegalArgumentException("Not enough parameters passed to update: " + parameters.length);
+        }
+
+        Object[] queryParameters = split(parameters, 0, queryParameterCount);
+        Object[] modifierParameters = split(parameters, queryParameterCount, parameters.length);
+
+        Query bound = query.bind(queryParameters);
+        DBObject modifierDBObject = modifier.bind(modifierParameters).toDBObject();
+        QueryExecution execution = QueryExecution.start(bound);
+        WriteResult writeResult;
+        try {
+            writeResult = collection.update(bound.toDBObject(), modifierDBObject, upsert, multi, writeConcern);
+        } finally {
+            execution.done();
+        }
+        return writeResult;
+    }
+
+    public int getParameterCount() {
+        return query.getParameterCount() + modifier.getParameterCount();
+    }
+
+    private Object[] split(Object[] parameters, int from, int to) {
+        if (from == 0 && to == parameters.length) {
+            return parameters;
+        }
+        if (from == to) {
+            return NO_PARAMETERS;
+        }
+        Object[] split = new Object[to - from];
+        System.arraycopy(parameters, from, split, 0, split.length);
+        return split;
+    }
+
+    public PreparedUpdate upsert() {
+        this.upsert = true;
+        return this;
+    }
+
+    public PreparedUpdate multi() {
+        this.multi = true;
+        return this;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import com.mongodb.DBObject;
+import org.bson.LazyBSONObject;
+import org.jongo.bson.BsonDocument;
+import org.jongo.query.Query;
+import org.jongo.stats.InstrumentedQuery;
+import org.jongo.stats.QueryShapeStats;
+
+/**
+ * Records the execution of {@link InstrumentedQuery}s into the stats of their shape. Does nothing for other queries.
+ */
+class QueryExecution {
+
+    private final QueryShapeStats stats;
+    private final long start;
+
+    private QueryExecution(QueryShapeStats stats) {
+        this.stats = stats;
+        this.start = stats == null ? 0 : System.nanoTime();
+    }
+
+    static QueryExecution start(Query query) {
+        return new QueryExecution(getStats(query));
+    }
+
+    static QueryShapeStats getStats(Query query) {
+        return query instanceof InstrumentedQuery ? ((InstrumentedQuery) query).getStats() : null;
+    }
+
+    static void recordDocument(QueryShapeStats stats, DBObject document) {
+        if (stats != null && document != null) {
+            stats.recordDocument(sizeOf(document));
+        }
+    }
+
+    private static int sizeOf(DBObject document) {
+        if (document instanceof BsonDocument) {
+            return ((BsonDocument) document).getSize();
+        }
+        if (document instanceof LazyBSONObject) {
+            return ((LazyBSONObject) document).getBSONSize();
+        }
+        return 0;
+    }
+
+    void document(DBObject document) {
+        recordDocument(stats, document);
+    }
+
+    void done() {
+        if (stats != null) {
+            stats.recordExecution(System.nanoTime() - start);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.mongodb.DBObject;
 import org.jongo.bson.Bson;
 import org.jongo.bson.BsonDocument;
 import org.jongo.marshall.Unmarshaller;
+import org.jongo.marshall.UpdatingUnmarshaller;
 
 class ResultHandlerFactory {
 
@@ -28,6 +29,17 @@ class ResultHandlerFactory {
         return new UnmarshallingResultHandler<T>(unmarshaller, clazz);
     }
 
+    /**
+     * @return a handler reading each result into the reusable instance when the unmarshaller supports it,
+     * into a new instance otherwise
+     */
+    public static <T> ResultHandler<T> newResultHandler(final Class<T> clazz, final T reusable, final Unmarshaller unmarshaller) {
+        if (unmarshaller instanceof UpdatingUnmarshaller) {
+            return new UpdatingResultHandler<T>((UpdatingUnmarshaller) unmarshaller, reusable);
+        }
+        return newResultHandler(clazz, unmarshaller);
+    }
+
     private static class UnmarshallingResultHandler<T> implements ResultHandler<T> {
 
         private final Unmarshaller unmarshaller;
@@ -44,6 +56,20 @@ class ResultHandlerFactory {
         }
     }
 
+    private static class UpdatingResultHandler<T> implements ResultHandler<T> {
+
+        private final UpdatingUnmarshaller.TargetUnmarshaller<T> unmarshaller;
+
+        public UpdatingResultHandler(UpdatingUnmarshaller unmarshaller, T reusable) {
+            this.unmarshaller = unmarshaller.unmarshallerInto(reusable);
+        }
+
+        public T map(DBObject result) {
+            BsonDocument bsonDocument = Bson.createDocument(result);
+            return unmarshaller.unmarshall(bsonDocument);
+        }
+    }
+
     private ResultHandlerFactory() {
     }
 }
@@ -53,17 +53,28 @@ public class Update {
 	
 	public WriteResult with(String modifier, Object... parameters) {
 		Query updateQuery = this.queryFactory.createQuery(modifier, parameters);
-		WriteResult writeResult = this.collection.update(this.query.toDBObject(), updateQuery.toDBObject(), this.upsert, this.multi, this.writeConcern);
+		QueryExecution execution = QueryExecution.start(this.query);
+		WriteResult writeResult;
+		try {
+			writeResult = this.collection.update(this.query.toDBObject(), updateQuery.toDBObject(), this.upsert, this.multi, this.writeConcern);
+		} finally {
+			execution.done();
+		}
 		
 		return writeResult;
 	}
 	
 	public WriteResult with(Object pojo) {
 		
-		DBObject updateDbo = this.queryFactory.createQuery("{$set:#}", pojo).toDBObject();
-		this.removeIdField(updateDbo);
+		DBObject updateDbo = this.removeIdField(this.queryFactory.createQuery("{$set:#}", pojo).toDBObject());
 		DBObject findQuery = this.query.toDBObject();
-		WriteResult writeResult = this.collection.update(findQuery, updateDbo, this.upsert, this.multi, this.writeConcern);
+		QueryExecution execution = QueryExecution.start(this.query);
+		WriteResult writeResult;
+		try {
+			writeResult = this.collection.update(findQuery, updateDbo, this.upsert, this.multi, this.writeConcern);
+		} finally {
+			execution.done();
+		}
 		
 		if (this.historyCollection != null) {
 			// copy elements to history collection
@@ -80,18 +91,19 @@ public class Update {
 		return writeResult;
 	}
 	
-	private void removeIdField(DBObject updateDbo) {
+	private DBObject removeIdField(DBObject updateDbo) {
 		DBObject pojoAsDbo = (DBObject) updateDbo.get("$set");
 		if (pojoAsDbo.containsField("_id")) {
 			// Need to materialize lazy objects which are read only
 			if (pojoAsDbo instanceof LazyBSONObject) {
 				BasicDBObject expanded = new BasicDBObject();
 				expanded.putAll(pojoAsDbo);
-				updateDbo.put("$set", expanded);
 				pojoAsDbo = expanded;
 			}
 			pojoAsDbo.removeField("_id");
+			return new BasicDBObject("$set", pojoAsDbo);
 		}
+		return updateDbo;
 	}
 	
 	public Update upsert() {
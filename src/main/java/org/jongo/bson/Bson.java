@@ -17,6 +17,9 @@
 package org.jongo.bson;
 
 import com.mongodb.DBObject;
+import com.mongodb.LazyDBObject;
+
+import java.nio.ByteBuffer;
 
 public class Bson {
 
@@ -24,10 +27,22 @@ public class Bson {
         return Primitives.contains(obj.getClass());
     }
 
+    public static boolean isPrimitiveType(Class<?> clazz) {
+        return Primitives.contains(clazz);
+    }
+
+    public static BsonKind kindOf(Object obj) {
+        return Primitives.kindOf(obj.getClass());
+    }
+
     public static BsonDocument createDocument(DBObject dbo) {
         if (dbo instanceof BsonDocument) {
             return (BsonDocument) dbo;
         }
+        // Subclasses may be writable or override fields, their bytes would not reflect them
+        if (dbo.getClass() == LazyDBObject.class) {
+            return LazyBsonDocument.slice((LazyDBObject) dbo);
+        }
         return new BufferedBsonDocument(dbo);
     }
 
@@ -35,6 +50,14 @@ public class Bson {
         return new LazyBsonDocument(bytes);
     }
 
+    /**
+     * @param buffer holding a document from its position, which is left unchanged
+     * @return the document, reading the buffer as long as it is in use
+     */
+    public static ByteBufferBsonDocument createDocument(ByteBuffer buffer) {
+        return new SlicedBsonDocument(buffer);
+    }
+
     private Bson() {
     }
 }
@@ -18,18 +18,51 @@ package org.jongo.bson;
 
 import com.mongodb.*;
 import com.mongodb.gridfs.GridFSDBFile;
-
-import java.util.Iterator;
+import org.bson.BSON;
 
 public class BsonDBDecoder extends LazyDBDecoder implements DBDecoder {
 
     public final static DBDecoderFactory FACTORY = new BsonDBDecoderFactory();
 
+    private static final byte[] REF = {'$', 'r', 'e', 'f'};
+    private static final byte[] ID = {'$', 'i', 'd'};
+
+    // Decoders are not shared between threads, the callback of the last collection is reset and reused
+    private CollectionDBCallback callback;
+
     private BsonDBDecoder() {
     }
 
     public DBCallback getDBCallback(DBCollection collection) {
-        return new CollectionDBCallback(collection);
+        CollectionDBCallback cached = callback;
+        if (cached == null || cached.collection != collection) {
+            cached = new CollectionDBCallback(collection);
+            callback = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * @return true when the names of the first two elements of the document are $ref then $id
+     */
+    static boolean isDBRef(byte[] data, int offset) {
+        int position = offset + 4;
+        if (data[position++] != BSON.STRING || !hasName(data, position, REF)) {
+            return false;
+        }
+        position += REF.length + 1;
+        int length = (data[position] & 0xff) | (data[position + 1] & 0xff) << 8 | (data[position + 2] & 0xff) << 16 | (data[position + 3] & 0xff) << 24;
+        position += 4 + length;
+        return data[position] != BSON.EOO && hasName(data, position + 1, ID);
+    }
+
+    private static boolean hasName(byte[] data, int position, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (data[position + i] != name[i]) {
+                return false;
+            }
+        }
+        return data[position + name.length] == 0;
     }
 
     private static class BsonDBDecoderFactory implements DBDecoderFactory {
@@ -42,35 +75,27 @@ public class BsonDBDecoder extends LazyDBDecoder implements DBDecoder {
     private static class CollectionDBCallback extends LazyDBCallback {
 
         private final DBCollection collection;
+        private final boolean gridFS;
 
         public CollectionDBCallback(DBCollection collection) {
             super(collection);
             this.collection = collection;
+            this.gridFS = collection != null && GridFSDBFile.class.equals(collection.getObjectClass());
         }
 
         @Override
         public Object createObject(byte[] data, int offset) {
 
-            if (isGridFSCollection()) {
+            if (gridFS) {
                 return DefaultDBDecoder.FACTORY.create().decode(data, collection);
             }
 
             DBObject dbo = new BsonDBObject(data, offset);
-            if (isDBRef(dbo)) {
+            if (isDBRef(data, offset)) {
                 return new DBRef((String) dbo.get("$ref"), dbo.get("$id"));
             }
             return dbo;
         }
-
-        private boolean isGridFSCollection() {
-            return GridFSDBFile.class.equals(collection.getObjectClass());
-        }
-
-        private boolean isDBRef(DBObject dbo) {
-            Iterator<String> iterator = dbo.keySet().iterator();
-            return iterator.hasNext() && iterator.next().equals("$ref") && iterator.hasNext() && iterator.next().equals("$id");
-        }
-
     }
 
 }
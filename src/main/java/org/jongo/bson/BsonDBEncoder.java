@@ -18,21 +18,37 @@ package org.jongo.bson;
 
 import com.mongodb.*;
 import org.bson.BSONObject;
+import org.bson.LazyBSONObject;
 import org.bson.io.OutputBuffer;
+import org.bson.types.ObjectId;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
 
 public class BsonDBEncoder implements DBEncoder {
 
     public final static DBEncoderFactory FACTORY = new BsonDBEncoderFactory();
 
+    // Documents held by buffers are copied by chunks, never as a whole on heap
+    private static final int CHUNK_SIZE = 8192;
+
+    // Allocated on the first document held by a buffer, then reused for every document written by the encoder
+    private byte[] chunk;
+
     private BsonDBEncoder() {
     }
 
     public int writeObject(final OutputBuffer buf, BSONObject o) {
 
+        if (o instanceof ByteBufferBsonDocument) {
+            return writeBuffer(buf, ((ByteBufferBsonDocument) o).toByteBuffer());
+        }
+
         if (!(o instanceof LazyDBObject)) {
-            return DefaultDBEncoder.FACTORY.create().writeObject(buf, o);
+            DBEncoder encoder = needsPiping(o) ? new PipingDBEncoder() : DefaultDBEncoder.FACTORY.create();
+            return encoder.writeObject(buf, o);
         }
 
         try {
@@ -42,6 +58,54 @@ public class BsonDBEncoder implements DBEncoder {
         }
     }
 
+    /**
+     * Only documents holding lazy objects or typed arrays, at any depth, are written by {@link PipingDBEncoder}.
+     * Other documents are left to the driver's own encoder.
+     */
+    private static boolean needsPiping(Object value) {
+        if (value instanceof LazyBSONObject || value instanceof TypedDBList || value instanceof long[]
+                || value instanceof int[] || value instanceof String[] || value instanceof ObjectId[]) {
+            return true;
+        }
+        if (value instanceof BSONObject) {
+            BSONObject document = (BSONObject) value;
+            for (String key : document.keySet()) {
+                if (needsPiping(document.get(key))) {
+                    return true;
+                }
+            }
+        } else if (value instanceof Map) {
+            return containsPipedValue(((Map<?, ?>) value).values());
+        } else if (value instanceof Iterable) {
+            return containsPipedValue((Iterable<?>) value);
+        } else if (value instanceof Object[]) {
+            return containsPipedValue(Arrays.asList((Object[]) value));
+        }
+        return false;
+    }
+
+    private static boolean containsPipedValue(Iterable<?> values) {
+        for (Object element : values) {
+            if (needsPiping(element)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int writeBuffer(OutputBuffer buf, ByteBuffer document) {
+        int size = document.remaining();
+        if (chunk == null) {
+            chunk = new byte[CHUNK_SIZE];
+        }
+        while (document.hasRemaining()) {
+            int length = Math.min(chunk.length, document.remaining());
+            document.get(chunk, 0, length);
+            buf.write(chunk, 0, length);
+        }
+        return size;
+    }
+
     private static class BsonDBEncoderFactory implements DBEncoderFactory {
         public DBEncoder create() {
             return new BsonDBEncoder();
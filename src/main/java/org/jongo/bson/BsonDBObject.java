@@ -20,6 +20,8 @@ import com.mongodb.DBObject;
 import com.mongodb.LazyDBCallback;
 import com.mongodb.LazyDBObject;
 
+import java.util.Arrays;
+
 class BsonDBObject extends LazyDBObject implements BsonDocument {
 
     public BsonDBObject(byte[] data, int offset) {
@@ -27,9 +29,24 @@ class BsonDBObject extends LazyDBObject implements BsonDocument {
     }
 
     public byte[] toByteArray() {
+        byte[] bytes = getBytes();
+        int offset = getOffset();
+        int size = getSize();
+        if (offset == 0 && size == bytes.length) {
+            return bytes;
+        }
+        return Arrays.copyOfRange(bytes, offset, offset + size);
+    }
+
+    public byte[] getBuffer() {
         return getBytes();
     }
 
+    @Override
+    public int getOffset() {
+        return super.getOffset();
+    }
+
     public DBObject toDBObject() {
         return this;
     }
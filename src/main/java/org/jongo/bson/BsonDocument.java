@@ -19,10 +19,23 @@ package org.jongo.bson;
 
 import com.mongodb.DBObject;
 
+/**
+ * A BSON document, which may be a slice of a larger buffer such as a reply of the server.
+ */
 public interface BsonDocument {
 
+    /**
+     * @return the bytes of this document only, copied out of the buffer when the document is a slice of it
+     */
     byte[] toByteArray();
 
+    /**
+     * @return the buffer holding this document from {@link #getOffset()}, without copy
+     */
+    byte[] getBuffer();
+
+    int getOffset();
+
     DBObject toDBObject();
 
     int getSize();
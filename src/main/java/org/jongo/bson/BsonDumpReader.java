@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over the documents of a BSON file written by mongodump, as slices of the file mapped in memory.
+ * <p/>
+ * The file is mapped by windows of 256MB, so that dumps larger than a buffer can be read. Documents stay readable
+ * once the reader is closed, until they are garbage collected.
+ */
+public class BsonDumpReader implements Iterator<ByteBufferBsonDocument>, Closeable {
+
+    private static final long WINDOW_SIZE = 256 * 1024 * 1024;
+
+    private final Path dump;
+    private final FileChannel channel;
+    private final long length;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long position;
+
+    public BsonDumpReader(Path dump) throws IOException {
+        this.dump = dump;
+        this.channel = FileChannel.open(dump, StandardOpenOption.READ);
+        this.length = channel.size();
+    }
+
+    public BsonDumpReader(File dump) throws IOException {
+        this(dump.toPath());
+    }
+
+    public boolean hasNext() {
+        return position < length;
+    }
+
+    public ByteBufferBsonDocument next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            if (length - position < 4) {
+                throw new IllegalStateException("Not enough bytes for length of document at offset " + position + " of " + dump);
+            }
+            moveWindow(4);
+            int size = window.getInt(window.position());
+            if (size < 5 || size > length - position) {
+                throw new IllegalStateException("Invalid document length " + size + " at offset " + position + " of " + dump);
+            }
+            moveWindow(size);
+            ByteBufferBsonDocument document = Bson.createDocument(window);
+            position += size;
+            return document;
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read " + dump, e);
+        }
+    }
+
+    /**
+     * Positions the window on the next document, mapping the file again from the document when it is not fully mapped.
+     */
+    private void moveWindow(int size) throws IOException {
+        if (window == null || position + size > windowStart + window.capacity()) {
+            long windowSize = Math.min(Math.max(WINDOW_SIZE, size), length - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = position;
+        }
+        window.position((int) (position - windowStart));
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Dumps are read only");
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
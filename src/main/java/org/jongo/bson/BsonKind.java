@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+/**
+ * How values of a Java type are written into a BSON document, see {@link Bson#kindOf(Object)}.
+ * <p/>
+ * Values of primitive kinds are written as is by the driver, others have to be marshalled.
+ */
+public enum BsonKind {
+
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    DATE,
+    OBJECT_ID,
+    PATTERN,
+    UUID,
+    TIMESTAMP,
+    BINARY,
+    CODE_W_SCOPE,
+    CODE,
+    MIN_KEY,
+    MAX_KEY,
+    DB_REF,
+    DOCUMENT,
+    /**
+     * Arrays of Java primitives, eg. byte[]
+     */
+    PRIMITIVE_ARRAY,
+    COLLECTION(false),
+    ARRAY(false),
+    ENUM(false),
+    OBJECT(false);
+
+    private final boolean primitive;
+
+    private BsonKind() {
+        this(true);
+    }
+
+    private BsonKind(boolean primitive) {
+        this.primitive = primitive;
+    }
+
+    public boolean isPrimitive() {
+        return primitive;
+    }
+}
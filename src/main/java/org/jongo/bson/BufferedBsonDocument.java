@@ -14,37 +14,69 @@
  * limitations under the License.
  */
 
+
 package org.jongo.bson;
 
 import com.mongodb.DBEncoder;
 import com.mongodb.DBObject;
 import com.mongodb.DefaultDBEncoder;
-import org.bson.BSONObject;
-import org.bson.io.BasicOutputBuffer;
-import org.bson.io.OutputBuffer;
 
+/**
+ * A document encoded from its {@link DBObject} the first time its bytes are needed,
+ * so that callers only reading the DBObject back don't pay for the encoding.
+ */
 class BufferedBsonDocument implements BsonDocument {
 
-    private final OutputBuffer buffer;
+    // Encoding buffers are recycled per thread, unless they have grown beyond MAX_BUFFER_SIZE
+    private static final ThreadLocal<ReusableOutputBuffer> BUFFERS = new ThreadLocal<ReusableOutputBuffer>() {
+        @Override
+        protected ReusableOutputBuffer initialValue() {
+            return new ReusableOutputBuffer(512);
+        }
+    };
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
     private final DBObject dbo;
+    private volatile byte[] bytes;
 
     BufferedBsonDocument(DBObject dbo) {
-        this.buffer = new BasicOutputBuffer();
         this.dbo = dbo;
-        encode(this.dbo);
     }
 
-    private void encode(BSONObject dbo) {
-        DBEncoder dbEncoder = DefaultDBEncoder.FACTORY.create();
-        dbEncoder.writeObject(buffer, dbo);
+    private static byte[] encode(DBObject dbo) {
+        ReusableOutputBuffer buffer = BUFFERS.get();
+        try {
+            DBEncoder dbEncoder = DefaultDBEncoder.FACTORY.create();
+            dbEncoder.writeObject(buffer, dbo);
+            return buffer.toByteArray();
+        } finally {
+            if (buffer.capacity() > MAX_BUFFER_SIZE) {
+                BUFFERS.remove();
+            } else {
+                buffer.reset();
+            }
+        }
     }
 
     public int getSize() {
-        return buffer.size();
+        return toByteArray().length;
     }
 
     public byte[] toByteArray() {
-        return buffer.toByteArray();
+        byte[] encoded = bytes;
+        if (encoded == null) {
+            encoded = encode(dbo);
+            bytes = encoded;
+        }
+        return encoded;
+    }
+
+    public byte[] getBuffer() {
+        return toByteArray();
+    }
+
+    public int getOffset() {
+        return 0;
     }
 
     public DBObject toDBObject() {
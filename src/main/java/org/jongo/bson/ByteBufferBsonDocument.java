@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A BSON document held by a {@link ByteBuffer}, which may be direct or taken from a pool, see {@link Bson#createDocument(ByteBuffer)}.
+ * <p/>
+ * Such documents are read and written through their buffer by Jongo: {@link #getBuffer()} and {@link #toDBObject()}
+ * copy them on heap. They must not be passed to the driver's insert methods, which read every key of the documents
+ * they insert and would copy them on heap as well.
+ */
+public interface ByteBufferBsonDocument extends BsonDocument {
+
+    /**
+     * @return a read-only view of the buffer holding this document only, from position 0
+     */
+    ByteBuffer toByteBuffer();
+}
@@ -17,30 +17,65 @@
 package org.jongo.bson;
 
 import com.mongodb.DBObject;
+import org.bson.LazyBSONObject;
 
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
 
 class LazyBsonDocument implements BsonDocument {
 
     private final byte[] bytes;
+    private final int offset;
+    private final DBObject dbo;
 
     LazyBsonDocument(byte[] bytes) {
+        this(bytes, 0, null);
+    }
+
+    private LazyBsonDocument(byte[] bytes, int offset, DBObject dbo) {
         this.bytes = bytes;
+        this.offset = offset;
+        this.dbo = dbo;
+    }
+
+    /**
+     * Wraps the slice of the driver buffer holding a lazy object, handed out by {@link LazyBSONObject#pipe(OutputStream)}.
+     */
+    static LazyBsonDocument slice(LazyBSONObject lazy) {
+        SliceOutput output = new SliceOutput();
+        try {
+            lazy.pipe(output);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read bytes of " + lazy, e);
+        }
+        return new LazyBsonDocument(output.buffer, output.offset, (DBObject) lazy);
     }
 
     public int getSize() {
-        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        return buffer.getInt(0);
+        byte[] b = bytes;
+        int o = offset;
+        return (b[o] & 0xff) | (b[o + 1] & 0xff) << 8 | (b[o + 2] & 0xff) << 16 | (b[o + 3] & 0xff) << 24;
     }
 
     public byte[] toByteArray() {
+        int size = getSize();
+        if (offset == 0 && size == bytes.length) {
+            return bytes;
+        }
+        return Arrays.copyOfRange(bytes, offset, offset + size);
+    }
+
+    public byte[] getBuffer() {
         return bytes;
     }
 
+    public int getOffset() {
+        return offset;
+    }
+
     public DBObject toDBObject() {
-        return new BsonDBObject(bytes, 0);
+        return dbo != null ? dbo : new BsonDBObject(bytes, offset);
     }
 
     @Override
@@ -48,4 +83,34 @@ class LazyBsonDocument implements BsonDocument {
         return toDBObject().toString();
     }
 
+    /**
+     * Keeps the array written at once rather than copying it, and only copies bytes written in several parts.
+     */
+    private static class SliceOutput extends OutputStream {
+
+        private byte[] buffer;
+        private int offset;
+        private int length;
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (buffer == null) {
+                buffer = b;
+                offset = off;
+                length = len;
+                return;
+            }
+            byte[] parts = new byte[length + len];
+            System.arraycopy(buffer, offset, parts, 0, length);
+            System.arraycopy(b, off, parts, length, len);
+            buffer = parts;
+            offset = 0;
+            length = parts.length;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+    }
 }
@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bson;
+
+import com.mongodb.DefaultDBEncoder;
+import com.mongodb.MongoException;
+import org.bson.BSON;
+import org.bson.LazyBSONObject;
+import org.bson.io.OutputBuffer;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link DefaultDBEncoder} which copies nested lazy objects as is instead of decoding and re-encoding them.
+ * <p/>
+ * Arrays of longs, ints, strings and ObjectIds, and {@link TypedDBList}s of those types, are written
+ * with one loop per type instead of going through the driver's reflective and per-element encoding.
+ */
+public class PipingDBEncoder extends DefaultDBEncoder {
+
+    private final byte[] digits = new byte[10];
+
+    @Override
+    protected void _putObjectField(String name, Object value) {
+        if (value instanceof LazyBSONObject) {
+            putLazyObject(name, (LazyBSONObject) value);
+        } else if (!isTypedArray(value) || hasEncodingHooks(value)) {
+            super._putObjectField(name, value);
+        } else if (value instanceof long[]) {
+            putLongArray(name, (long[]) value);
+        } else if (value instanceof int[]) {
+            putIntArray(name, (int[]) value);
+        } else if (value instanceof ObjectId[]) {
+            putObjectIdArray(name, (ObjectId[]) value);
+        } else if (value instanceof String[]) {
+            putStringArray(name, (String[]) value);
+        } else {
+            putTypedList(name, (TypedDBList) value);
+        }
+    }
+
+    private boolean isTypedArray(Object value) {
+        if (value instanceof TypedDBList) {
+            Class<?> type = ((TypedDBList) value).getElementType();
+            return type == Long.class || type == Integer.class || type == String.class || type == ObjectId.class;
+        }
+        return value instanceof long[] || value instanceof int[] || value instanceof ObjectId[] || value instanceof String[];
+    }
+
+    /**
+     * The driver applies encoding hooks to each element of an array, so the loops below can only be used
+     * when no hook is registered for the array nor for its elements. Driver 2.13 does not expose
+     * BSON.hasEncodeHooks, hence the lookup by class.
+     */
+    private boolean hasEncodingHooks(Object value) {
+        Class<?> elementType;
+        if (value instanceof TypedDBList) {
+            elementType = ((TypedDBList) value).getElementType();
+        } else if (value instanceof long[]) {
+            elementType = Long.class;
+        } else if (value instanceof int[]) {
+            elementType = Integer.class;
+        } else {
+            elementType = value.getClass().getComponentType();
+        }
+        return BSON.getEncodingHooks(value.getClass()) != null || BSON.getEncodingHooks(elementType) != null;
+    }
+
+    protected void putLazyObject(String name, LazyBSONObject lazyObject) {
+        putName(lazyObject instanceof List ? BSON.ARRAY : BSON.OBJECT, name);
+        try {
+            lazyObject.pipe(getOutputBuffer());
+        } catch (IOException e) {
+            throw new MongoException("Exception serializing a LazyDBObject", e);
+        }
+    }
+
+    private void putLongArray(String name, long[] values) {
+        OutputBuffer buf = getOutputBuffer();
+        int sizePos = startArray(name);
+        for (int i = 0; i < values.length; i++) {
+            putIndex(BSON.NUMBER_LONG, i);
+            buf.writeLong(values[i]);
+        }
+        endArray(sizePos);
+    }
+
+    private void putIntArray(String name, int[] values) {
+        OutputBuffer buf = getOutputBuffer();
+        int sizePos = startArray(name);
+        for (int i = 0; i < values.length; i++) {
+            putIndex(BSON.NUMBER_INT, i);
+            buf.writeInt(values[i]);
+        }
+        endArray(sizePos);
+    }
+
+    private void putObjectIdArray(String name, ObjectId[] values) {
+        int sizePos = startArray(name);
+        for (int i = 0; i < values.length; i++) {
+            putObjectIdElement(i, values[i]);
+        }
+        endArray(sizePos);
+    }
+
+    private void putStringArray(String name, String[] values) {
+        int sizePos = startArray(name);
+        for (int i = 0; i < values.length; i++) {
+            putStringElement(i, values[i]);
+        }
+        endArray(sizePos);
+    }
+
+    private void putTypedList(String name, TypedDBList list) {
+        OutputBuffer buf = getOutputBuffer();
+        Class<?> type = list.getElementType();
+        int size = list.size();
+        int sizePos = startArray(name);
+        if (type == Long.class) {
+            for (int i = 0; i < size; i++) {
+                Object element = list.get(i);
+                if (element instanceof Long) {
+                    putIndex(BSON.NUMBER_LONG, i);
+                    buf.writeLong((Long) element);
+                } else {
+                    putElement(i, element);
+                }
+            }
+        } else if (type == Integer.class) {
+            for (int i = 0; i < size; i++) {
+                Object element = list.get(i);
+                if (element instanceof Integer) {
+                    putIndex(BSON.NUMBER_INT, i);
+                    buf.writeInt((Integer) element);
+                } else {
+                    putElement(i, element);
+                }
+            }
+        } else if (type == ObjectId.class) {
+            for (int i = 0; i < size; i++) {
+                Object element = list.get(i);
+                if (element instanceof ObjectId) {
+                    putObjectIdElement(i, (ObjectId) element);
+                } else {
+                    putElement(i, element);
+                }
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                Object element = list.get(i);
+                if (element instanceof String) {
+                    putStringElement(i, (String) element);
+                } else {
+                    putElement(i, element);
+                }
+            }
+        }
+        endArray(sizePos);
+    }
+
+    private void putObjectIdElement(int index, ObjectId oid) {
+        if (oid == null) {
+            putIndex(BSON.NULL, index);
+        } else if (oid.getClass() != ObjectId.class) {
+            putElement(index, oid);
+        } else {
+            putIndex(BSON.OID, index);
+            getOutputBuffer().write(oid.toByteArray());
+        }
+    }
+
+    private void putStringElement(int index, String value) {
+        if (value == null) {
+            putIndex(BSON.NULL, index);
+            return;
+        }
+        putIndex(BSON.STRING, index);
+        getOutputBuffer().writeString(value);
+    }
+
+    private void putElement(int index, Object element) {
+        if (element == null) {
+            putIndex(BSON.NULL, index);
+        } else {
+            _putObjectField(String.valueOf(index), element);
+        }
+    }
+
+    private void putName(byte type, String name) {
+        OutputBuffer buf = getOutputBuffer();
+        buf.write(type);
+        buf.writeCString(name);
+    }
+
+    private int startArray(String name) {
+        OutputBuffer buf = getOutputBuffer();
+        putName(BSON.ARRAY, name);
+        int sizePos = buf.getPosition();
+        buf.writeInt(0);
+        return sizePos;
+    }
+
+    private void endArray(int sizePos) {
+        OutputBuffer buf = getOutputBuffer();
+        buf.write(BSON.EOO);
+        buf.backpatchSize(buf.getPosition() - sizePos);
+    }
+
+    /**
+     * Writes the type and the name of an array element without building the name as a string.
+     */
+    private void putIndex(byte type, int index) {
+        OutputBuffer buf = getOutputBuffer();
+        buf.write(type);
+        if (index < 10) {
+            buf.write('0' + index);
+        } else {
+            int length = 0;
+            for (int n = index; n > 0; n /= 10) {
+                digits[length++] = (byte) ('0' + n % 10);
+            }
+            while (length > 0) {
+                buf.write(digits[--length]);
+            }
+        }
+        buf.write(0);
+    }
+}
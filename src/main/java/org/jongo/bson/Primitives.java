@@ -26,49 +26,67 @@ import org.bson.types.MaxKey;
 import org.bson.types.MinKey;
 import org.bson.types.ObjectId;
 
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
+/**
+ * Classifies types into {@link BsonKind}s. The kind of a type is found out by scanning the types below once,
+ * then remembered by the type itself, so that classes of other class loaders can still be unloaded.
+ */
 class Primitives {
 
-    private static final Set<Class<?>> PRIMITIVES;
+    private static final Map<Class<?>, BsonKind> TYPES;
+    private static final ClassValue<BsonKind> KINDS = new ClassValue<BsonKind>() {
+        @Override
+        protected BsonKind computeValue(Class<?> clazz) {
+            return classify(clazz);
+        }
+    };
 
     static {
-        PRIMITIVES = new HashSet<Class<?>>();
-        PRIMITIVES.add(String.class);
-        PRIMITIVES.add(Number.class);
-        PRIMITIVES.add(Boolean.class);
-        PRIMITIVES.add(MinKey.class);
-        PRIMITIVES.add(MaxKey.class);
-        PRIMITIVES.add(ObjectId.class);
-        PRIMITIVES.add(Pattern.class);
-        PRIMITIVES.add(BSONTimestamp.class);
-        PRIMITIVES.add(Date.class);
-        PRIMITIVES.add(UUID.class);
-        PRIMITIVES.add(Code.class);
-        PRIMITIVES.add(DBObject.class);
-        PRIMITIVES.add(DBRef.class);
-        PRIMITIVES.add(CodeWScope.class);
-        PRIMITIVES.add(Binary.class);
+        // Ordered from the most specific type, CodeWScope extends Code and BasicDBList is both a DBObject and a Collection
+        TYPES = new LinkedHashMap<Class<?>, BsonKind>();
+        TYPES.put(String.class, BsonKind.STRING);
+        TYPES.put(Number.class, BsonKind.NUMBER);
+        TYPES.put(Boolean.class, BsonKind.BOOLEAN);
+        TYPES.put(Date.class, BsonKind.DATE);
+        TYPES.put(ObjectId.class, BsonKind.OBJECT_ID);
+        TYPES.put(Pattern.class, BsonKind.PATTERN);
+        TYPES.put(UUID.class, BsonKind.UUID);
+        TYPES.put(BSONTimestamp.class, BsonKind.TIMESTAMP);
+        TYPES.put(Binary.class, BsonKind.BINARY);
+        TYPES.put(CodeWScope.class, BsonKind.CODE_W_SCOPE);
+        TYPES.put(Code.class, BsonKind.CODE);
+        TYPES.put(MinKey.class, BsonKind.MIN_KEY);
+        TYPES.put(MaxKey.class, BsonKind.MAX_KEY);
+        TYPES.put(DBRef.class, BsonKind.DB_REF);
+        TYPES.put(DBObject.class, BsonKind.DOCUMENT);
+        TYPES.put(Collection.class, BsonKind.COLLECTION);
+        TYPES.put(Enum.class, BsonKind.ENUM);
     }
 
     public static <T> boolean contains(Class<T> clazz) {
-        if (PRIMITIVES.contains(clazz) || isAJavaPrimitiveArray(clazz))
-            return true;
+        return kindOf(clazz).isPrimitive();
+    }
 
-        for (Class<?> primitive : PRIMITIVES) {
-            if (primitive.isAssignableFrom(clazz)) {
-                return true;
-            }
-        }
-        return false;
+    public static BsonKind kindOf(Class<?> clazz) {
+        return KINDS.get(clazz);
     }
 
-    private static <T> boolean isAJavaPrimitiveArray(Class<T> clazz) {
-        return clazz.isArray() && clazz.getComponentType().isPrimitive();
+    private static BsonKind classify(Class<?> clazz) {
+        if (clazz.isArray()) {
+            return clazz.getComponentType().isPrimitive() ? BsonKind.PRIMITIVE_ARRAY : BsonKind.ARRAY;
+        }
+        for (Map.Entry<Class<?>, BsonKind> type : TYPES.entrySet()) {
+            if (type.getKey().isAssignableFrom(clazz)) {
+                return type.getValue();
+            }
+        }
+        return BsonKind.OBJECT;
     }
 
     private Primitives() {
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bson;
+
+import org.bson.io.OutputBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * An {@link OutputBuffer} which can be emptied and reused. The driver's BasicOutputBuffer keeps its size
+ * when moved back to its start, and copies its content twice in {@link #toByteArray()}.
+ */
+class ReusableOutputBuffer extends OutputBuffer {
+
+    private byte[] buffer;
+    private int position;
+    private int size;
+
+    ReusableOutputBuffer(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    @Override
+    public void write(byte[] b) {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        ensure(position + len);
+        System.arraycopy(b, off, buffer, position, len);
+        moveTo(position + len);
+    }
+
+    @Override
+    public void write(int b) {
+        ensure(position + 1);
+        buffer[position] = (byte) b;
+        moveTo(position + 1);
+    }
+
+    @Override
+    public int getPosition() {
+        return position;
+    }
+
+    @Override
+    @Deprecated
+    public void setPosition(int position) {
+        this.position = position;
+    }
+
+    @Override
+    @Deprecated
+    public void seekEnd() {
+        position = size;
+    }
+
+    @Override
+    @Deprecated
+    public void seekStart() {
+        position = 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int pipe(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+        return size;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    @Override
+    public void truncateToPosition(int position) {
+        this.position = position;
+        this.size = position;
+    }
+
+    void reset() {
+        truncateToPosition(0);
+    }
+
+    int capacity() {
+        return buffer.length;
+    }
+
+    private void moveTo(int newPosition) {
+        position = newPosition;
+        if (newPosition > size) {
+            size = newPosition;
+        }
+    }
+
+    private void ensure(int length) {
+        if (length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(length, buffer.length * 2));
+        }
+    }
+}
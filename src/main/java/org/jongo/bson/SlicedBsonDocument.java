@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+import com.mongodb.DBObject;
+import org.bson.BSONObject;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A document sliced out of a buffer. As a {@link DBObject}, it is copied on heap the first time one of its fields is read,
+ * while {@link BsonDBEncoder} writes it straight from the buffer.
+ * <p/>
+ * The driver reads the keys and the _id of every document it inserts, so these documents are copied on heap
+ * when passed to its insert methods: use them as queries or updates, or copy them into a LazyDBObject first.
+ */
+class SlicedBsonDocument implements ByteBufferBsonDocument, DBObject {
+
+    private final ByteBuffer buffer;
+    private DBObject dbo;
+
+    SlicedBsonDocument(ByteBuffer buffer) {
+        ByteBuffer slice = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int size = slice.remaining() < 4 ? 0 : slice.getInt(0);
+        if (size < 5 || size > slice.remaining()) {
+            throw new IllegalArgumentException("Invalid document length " + size + " for " + slice.remaining() + " bytes available");
+        }
+        slice.limit(size);
+        this.buffer = slice;
+    }
+
+    public ByteBuffer toByteBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public int getSize() {
+        return buffer.limit();
+    }
+
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[getSize()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    public byte[] getBuffer() {
+        return toByteArray();
+    }
+
+    public int getOffset() {
+        return 0;
+    }
+
+    public DBObject toDBObject() {
+        return this;
+    }
+
+    private DBObject materialize() {
+        if (dbo == null) {
+            dbo = new BsonDBObject(toByteArray(), 0);
+        }
+        return dbo;
+    }
+
+    public void markAsPartialObject() {
+        materialize().markAsPartialObject();
+    }
+
+    public boolean isPartialObject() {
+        return dbo != null && dbo.isPartialObject();
+    }
+
+    public Object put(String key, Object v) {
+        return materialize().put(key, v);
+    }
+
+    public void putAll(BSONObject o) {
+        materialize().putAll(o);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public void putAll(Map m) {
+        materialize().putAll(m);
+    }
+
+    public Object get(String key) {
+        return materialize().get(key);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public Map toMap() {
+        return materialize().toMap();
+    }
+
+    public Object removeField(String key) {
+        return materialize().removeField(key);
+    }
+
+    @Deprecated
+    public boolean containsKey(String s) {
+        return materialize().containsField(s);
+    }
+
+    public boolean containsField(String s) {
+        return materialize().containsField(s);
+    }
+
+    public Set<String> keySet() {
+        return materialize().keySet();
+    }
+
+    @Override
+    public String toString() {
+        return materialize().toString();
+    }
+}
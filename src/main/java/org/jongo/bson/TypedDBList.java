@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bson;
+
+import com.mongodb.BasicDBList;
+
+/**
+ * A {@link BasicDBList} whose elements share the same BSON primitive type.
+ * <p/>
+ * Lists of {@link Long}, {@link Integer}, {@link String} and {@link org.bson.types.ObjectId} are written
+ * by {@link PipingDBEncoder} without dispatching on each element's type. Elements of another type are
+ * encoded as usual.
+ */
+public class TypedDBList extends BasicDBList {
+
+    private final Class<?> elementType;
+
+    public TypedDBList(Class<?> elementType) {
+        this.elementType = elementType;
+    }
+
+    public Class<?> getElementType() {
+        return elementType;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall;
+
+import org.jongo.bson.BsonDocument;
+
+/**
+ * Optional capability of an {@link Unmarshaller} able to read a document into an existing instance,
+ * so that one instance can be recycled across the results of a query.
+ */
+public interface UpdatingUnmarshaller {
+
+    /**
+     * Sets the properties of the target found in the document. Properties missing from the document are left unchanged.
+     *
+     * @return the target, or null when the document holds a null value
+     */
+    <T> T unmarshallInto(BsonDocument document, T target) throws MarshallingException;
+
+    /**
+     * @return an unmarshaller reading documents into the target, meant to be kept while the results of a query
+     * are read into it
+     */
+    <T> TargetUnmarshaller<T> unmarshallerInto(T target) throws MarshallingException;
+
+    interface TargetUnmarshaller<T> {
+
+        /**
+         * @see UpdatingUnmarshaller#unmarshallInto(BsonDocument, Object)
+         */
+        T unmarshall(BsonDocument document) throws MarshallingException;
+    }
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.marshall;
+
+/**
+ * Optional capability of a {@link Marshaller} able to marshall an object serialized as a BSON value
+ * (eg. a string or a number produced by a custom serializer) without wrapping it into a document first.
+ */
+public interface ValueMarshaller {
+
+    /**
+     * @return the BSON value of the object as decoded by the driver: a primitive, a list or a document
+     */
+    Object marshallValue(Object value) throws MarshallingException;
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.marshall.jackson;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Collects a single BSON document into an array allocated once, from the length prefix of the document.
+ * <p/>
+ * The generator keeps the whole document into its own recycled buffers until it is closed, then copies it here:
+ * the array handed out is the only one allocated per document. As a {@link WritableByteChannel}, buffers
+ * of the generator are copied without going through a temporary array.
+ */
+class BsonDocumentOutput extends OutputStream implements WritableByteChannel {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int LENGTH_PREFIX_SIZE = 4;
+
+    private byte[] bytes = EMPTY;
+    private int count = 0;
+    private boolean open = true;
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        bytes[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (count == 0 && len >= LENGTH_PREFIX_SIZE) {
+            allocate(readLength(b, off), len);
+        } else {
+            ensureCapacity(count + len);
+        }
+        System.arraycopy(b, off, bytes, count, len);
+        count += len;
+    }
+
+    public int write(ByteBuffer src) {
+        int len = src.remaining();
+        if (count == 0 && len >= LENGTH_PREFIX_SIZE) {
+            int pos = src.position();
+            allocate(readLength(src, pos), len);
+        } else {
+            ensureCapacity(count + len);
+        }
+        src.get(bytes, count, len);
+        count += len;
+        return len;
+    }
+
+    private static int readLength(byte[] b, int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+    }
+
+    private static int readLength(ByteBuffer src, int pos) {
+        return (src.get(pos) & 0xff) | (src.get(pos + 1) & 0xff) << 8 | (src.get(pos + 2) & 0xff) << 16 | (src.get(pos + 3) & 0xff) << 24;
+    }
+
+    private void allocate(int length, int minimum) {
+        bytes = new byte[Math.max(length, minimum)];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+
+    /**
+     * @return the written bytes, without copy when the document was written as announced by its length prefix
+     */
+    byte[] toByteArray() {
+        return count == bytes.length ? bytes : Arrays.copyOf(bytes, count);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+}
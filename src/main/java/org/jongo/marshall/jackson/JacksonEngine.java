@@ -16,18 +16,31 @@
 
 package org.jongo.marshall.jackson;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.jongo.bson.Bson;
 import org.jongo.bson.BsonDocument;
+import org.jongo.bson.ByteBufferBsonDocument;
 import org.jongo.marshall.Marshaller;
 import org.jongo.marshall.MarshallingException;
 import org.jongo.marshall.Unmarshaller;
+import org.jongo.marshall.UpdatingUnmarshaller;
+import org.jongo.marshall.ValueMarshaller;
+import org.jongo.marshall.jackson.bson4jackson.MongoBsonFactory;
 import org.jongo.marshall.jackson.configuration.Mapping;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Set;
 
 
-public class JacksonEngine implements Unmarshaller, Marshaller {
+public class JacksonEngine implements Unmarshaller, UpdatingUnmarshaller, Marshaller, ValueMarshaller {
+
+    private static final String VALUE_FIELD = "value";
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>();
+    private static final int MAX_SCRATCH_SIZE = 64 * 1024;
 
     private final Mapping mapping;
 
@@ -39,16 +52,87 @@ public class JacksonEngine implements Unmarshaller, Marshaller {
     public <T> T unmarshall(BsonDocument document, Class<T> clazz) throws MarshallingException {
 
         try {
-            return (T) mapping.getReader(clazz).readValue(document.toByteArray(), 0, document.getSize());
+            return (T) read(mapping.getReader(clazz), clazz, document);
         } catch (IOException e) {
             String message = String.format("Unable to unmarshall result to %s from content %s", clazz, document.toString());
             throw new MarshallingException(message, e);
         }
     }
 
+    public <T> T unmarshallInto(BsonDocument document, T target) throws MarshallingException {
+        return unmarshallerInto(target).unmarshall(document);
+    }
+
+    public <T> TargetUnmarshaller<T> unmarshallerInto(T target) throws MarshallingException {
+        return new UpdatingReader<T>(target.getClass(), mapping.getReader(target.getClass()).withValueToUpdate(target));
+    }
+
+    private Object read(ObjectReader reader, Class<?> clazz, BsonDocument document) throws IOException {
+        if (document instanceof ByteBufferBsonDocument) {
+            return readBuffer(reader, clazz, ((ByteBufferBsonDocument) document).toByteBuffer());
+        }
+        return read(reader, clazz, document.getBuffer(), document.getOffset(), document.getSize());
+    }
+
+    private Object read(ObjectReader reader, Class<?> clazz, byte[] buffer, int offset, int size) throws IOException {
+        Set<String> properties = mapping.getAcceptedProperties(clazz);
+        if (properties != null && reader.getFactory() instanceof MongoBsonFactory) {
+            return readPartially(reader, buffer, offset, size, properties);
+        }
+        return reader.readValue(buffer, offset, size);
+    }
+
+    /**
+     * Documents held by buffers are copied into an array kept by the thread, rather than into one array per document:
+     * parsers copy the values they read, so the array can be reused as soon as the document has been read.
+     * Documents larger than {@link #MAX_SCRATCH_SIZE} are read from their buffer through a bounded window of the parser,
+     * so that a thread never keeps more than 64KB and a large document is never copied as a whole.
+     */
+    private Object readBuffer(ObjectReader reader, Class<?> clazz, ByteBuffer document) throws IOException {
+        int size = document.remaining();
+        if (size > MAX_SCRATCH_SIZE) {
+            return readLargeBuffer(reader, clazz, document);
+        }
+        byte[] scratch = SCRATCH.get();
+        if (scratch == null || scratch.length < size) {
+            scratch = new byte[size];
+        }
+        // Taken from the thread while in use, in case a deserializer reads another document
+        SCRATCH.remove();
+        try {
+            document.get(scratch, 0, size);
+            return read(reader, clazz, scratch, 0, size);
+        } finally {
+            SCRATCH.set(scratch);
+        }
+    }
+
+    private Object readLargeBuffer(ObjectReader reader, Class<?> clazz, ByteBuffer document) throws IOException {
+        if (!(reader.getFactory() instanceof MongoBsonFactory)) {
+            byte[] bytes = new byte[document.remaining()];
+            document.get(bytes);
+            return read(reader, clazz, bytes, 0, bytes.length);
+        }
+        MongoBsonFactory factory = (MongoBsonFactory) reader.getFactory();
+        return readValue(reader, factory.createParser(document, mapping.getAcceptedProperties(clazz)));
+    }
+
+    private Object readPartially(ObjectReader reader, byte[] buffer, int offset, int size, Set<String> properties) throws IOException {
+        MongoBsonFactory factory = (MongoBsonFactory) reader.getFactory();
+        return readValue(reader, factory.createParser(buffer, offset, size, properties));
+    }
+
+    private Object readValue(ObjectReader reader, JsonParser parser) throws IOException {
+        try {
+            return reader.readValue(parser);
+        } finally {
+            parser.close();
+        }
+    }
+
     public BsonDocument marshall(Object pojo) throws MarshallingException {
 
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        BsonDocumentOutput output = new BsonDocumentOutput();
         try {
             mapping.getWriter(pojo).writeValue(output, pojo);
         } catch (IOException e) {
@@ -56,4 +140,42 @@ public class JacksonEngine implements Unmarshaller, Marshaller {
         }
         return Bson.createDocument(output.toByteArray());
     }
+
+    public Object marshallValue(Object value) throws MarshallingException {
+
+        BsonDocumentOutput output = new BsonDocumentOutput();
+        try {
+            ObjectWriter writer = mapping.getWriter(value);
+            JsonGenerator generator = writer.getFactory().createGenerator(output);
+            generator.writeStartObject();
+            generator.writeFieldName(VALUE_FIELD);
+            writer.writeValue(generator, value);
+            generator.writeEndObject();
+            generator.close();
+        } catch (IOException e) {
+            throw new MarshallingException("Unable to marshall " + value + " into bson", e);
+        }
+        return Bson.createDocument(output.toByteArray()).toDBObject().get(VALUE_FIELD);
+    }
+
+    private class UpdatingReader<T> implements TargetUnmarshaller<T> {
+
+        private final Class<?> clazz;
+        private final ObjectReader reader;
+
+        private UpdatingReader(Class<?> clazz, ObjectReader reader) {
+            this.clazz = clazz;
+            this.reader = reader;
+        }
+
+        @SuppressWarnings("unchecked")
+        public T unmarshall(BsonDocument document) throws MarshallingException {
+            try {
+                return (T) read(reader, clazz, document);
+            } catch (IOException e) {
+                String message = String.format("Unable to unmarshall result into %s from content %s", clazz, document.toString());
+                throw new MarshallingException(message, e);
+            }
+        }
+    }
 }
@@ -25,6 +25,9 @@ import org.jongo.marshall.Unmarshaller;
 import org.jongo.marshall.jackson.configuration.AbstractMappingBuilder;
 import org.jongo.query.BsonQueryFactory;
 import org.jongo.query.QueryFactory;
+import org.jongo.query.QueryParser;
+import org.jongo.stats.InstrumentedQueryFactory;
+import org.jongo.stats.QueryShapeRegistry;
 
 public class JacksonMapper implements Mapper {
 
@@ -57,7 +60,10 @@ public class JacksonMapper implements Mapper {
     public static class Builder extends AbstractMappingBuilder<Builder> {
 
         private QueryFactory queryFactory;
+        private QueryParser queryParser;
         private ObjectIdUpdater objectIdUpdater;
+        private boolean bsonQueries;
+        private QueryShapeRegistry queryShapeRegistry;
 
         public Builder() {
             super();
@@ -70,7 +76,12 @@ public class JacksonMapper implements Mapper {
         public Mapper build() {
             JacksonEngine jacksonEngine = new JacksonEngine(createMapping());
             if (queryFactory == null) {
-                queryFactory = new BsonQueryFactory(jacksonEngine);
+                BsonQueryFactory bsonQueryFactory = queryParser == null ? new BsonQueryFactory(jacksonEngine)
+                        : new BsonQueryFactory(jacksonEngine, queryParser);
+                queryFactory = bsonQueries ? bsonQueryFactory.withBsonOutput() : bsonQueryFactory;
+            }
+            if (queryShapeRegistry != null) {
+                queryFactory = new InstrumentedQueryFactory(queryFactory, queryShapeRegistry);
             }
             if (objectIdUpdater == null) {
                 objectIdUpdater = new ReflectiveObjectIdUpdater(new JacksonIdFieldSelector());
@@ -83,6 +94,21 @@ public class JacksonMapper implements Mapper {
             return getBuilderInstance();
         }
 
+        public Builder withQueryParser(QueryParser parser) {
+            this.queryParser = parser;
+            return getBuilderInstance();
+        }
+
+        public Builder withBsonQueries() {
+            this.bsonQueries = true;
+            return getBuilderInstance();
+        }
+
+        public Builder withQueryShapeRegistry(QueryShapeRegistry registry) {
+            this.queryShapeRegistry = registry;
+            return getBuilderInstance();
+        }
+
         public Builder withObjectIdUpdater(ObjectIdUpdater objectIdUpdater) {
             this.objectIdUpdater = objectIdUpdater;
             return getBuilderInstance();
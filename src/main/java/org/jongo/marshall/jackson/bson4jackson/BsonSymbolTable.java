@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.bson4jackson;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Field names read by {@link MongoBsonByteArrayParser}, shared by all the parsers of a factory and keyed by
+ * their UTF-8 bytes.
+ * <p/>
+ * A name already in the table is resolved without being decoded nor allocated. The table is lock free: each
+ * slot is filled at most once. It stops growing when full, so that documents with unbounded keys (eg. maps)
+ * cannot exhaust memory; their names are then decoded as usual.
+ */
+class BsonSymbolTable {
+
+    static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int MAX_SYMBOL_LENGTH = 64;
+    private static final int MAX_PROBES = 8;
+
+    private final AtomicReferenceArray<Symbol> slots;
+    private final int mask;
+    private final int maximumSize;
+    private final AtomicInteger size = new AtomicInteger();
+
+    BsonSymbolTable() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    BsonSymbolTable(int maximumSize) {
+        int capacity = 2;
+        while (capacity < maximumSize * 2) {
+            capacity <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<Symbol>(capacity);
+        this.mask = capacity - 1;
+        this.maximumSize = maximumSize;
+    }
+
+    String lookup(byte[] buffer, int offset, int length, boolean intern) {
+        if (length > MAX_SYMBOL_LENGTH) {
+            return decode(buffer, offset, length);
+        }
+        int hash = hash(buffer, offset, length);
+        int index = hash & mask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            Symbol symbol = slots.get(index);
+            if (symbol == null) {
+                return add(index, hash, buffer, offset, length, intern);
+            }
+            if (symbol.matches(hash, buffer, offset, length)) {
+                return symbol.name;
+            }
+            index = (index + 1) & mask;
+        }
+        return decode(buffer, offset, length);
+    }
+
+    private String add(int index, int hash, byte[] buffer, int offset, int length, boolean intern) {
+        String name = decode(buffer, offset, length);
+        if (intern) {
+            name = name.intern();
+        }
+        if (size.get() < maximumSize) {
+            byte[] bytes = new byte[length];
+            System.arraycopy(buffer, offset, bytes, 0, length);
+            if (slots.compareAndSet(index, null, new Symbol(hash, bytes, name))) {
+                size.incrementAndGet();
+            }
+        }
+        return name;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    static String decode(byte[] buffer, int offset, int length) {
+        return new String(buffer, offset, length, UTF8);
+    }
+
+    private static int hash(byte[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + buffer[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static class Symbol {
+
+        final int hash;
+        final byte[] bytes;
+        final String name;
+
+        Symbol(int hash, byte[] bytes, String name) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.name = name;
+        }
+
+        boolean matches(int hash, byte[] buffer, int offset, int length) {
+            if (this.hash != hash || bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != buffer[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.bson4jackson;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.AsPropertyTypeDeserializer;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Deserializes polymorphic documents without buffering the properties preceding their type id.
+ * <p/>
+ * MongoDB moves _id first when a document is inserted, so Jackson would copy it and every other property
+ * ahead of the type id into a token buffer. When parsing from a byte array, the type id is read where it is
+ * and the document is streamed to the deserializer of its type, resolved once per id.
+ */
+class BsonTypeDeserializer extends AsPropertyTypeDeserializer {
+
+    private final ConcurrentMap<String, JsonDeserializer<Object>> deserializersById;
+
+    BsonTypeDeserializer(JavaType baseType, TypeIdResolver idResolver, String typePropertyName, Class<?> defaultImpl) {
+        super(baseType, idResolver, typePropertyName, false, defaultImpl);
+        this.deserializersById = new ConcurrentHashMap<String, JsonDeserializer<Object>>();
+    }
+
+    private BsonTypeDeserializer(BsonTypeDeserializer src, BeanProperty property) {
+        super(src, property);
+        // Deserializers are contextualized with the property
+        this.deserializersById = new ConcurrentHashMap<String, JsonDeserializer<Object>>();
+    }
+
+    @Override
+    public TypeDeserializer forProperty(BeanProperty prop) {
+        return (prop == _property) ? this : new BsonTypeDeserializer(this, prop);
+    }
+
+    @Override
+    public Object deserializeTypedFromObject(JsonParser jp, DeserializationContext ctxt) throws IOException {
+        if (jp instanceof MongoBsonByteArrayParser && jp.getCurrentToken() == JsonToken.START_OBJECT) {
+            String typeId = ((MongoBsonByteArrayParser) jp).extractString(_typePropertyName);
+            if (typeId != null) {
+                return findDeserializer(ctxt, typeId).deserialize(jp, ctxt);
+            }
+        }
+        return super.deserializeTypedFromObject(jp, ctxt);
+    }
+
+    private JsonDeserializer<Object> findDeserializer(DeserializationContext ctxt, String typeId) throws IOException {
+        JsonDeserializer<Object> deserializer = deserializersById.get(typeId);
+        if (deserializer == null) {
+            deserializer = _findDeserializer(ctxt, typeId);
+            deserializersById.putIfAbsent(typeId, deserializer);
+        }
+        return deserializer;
+    }
+}
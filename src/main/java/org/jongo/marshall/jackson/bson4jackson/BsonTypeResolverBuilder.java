@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.bson4jackson;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.impl.AsPropertyTypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.impl.StdTypeResolverBuilder;
+
+import java.util.Collection;
+
+class BsonTypeResolverBuilder extends StdTypeResolverBuilder {
+
+    @Override
+    public TypeDeserializer buildTypeDeserializer(DeserializationConfig config, JavaType baseType, Collection<NamedType> subtypes) {
+        TypeDeserializer deserializer = super.buildTypeDeserializer(config, baseType, subtypes);
+        // Visible type ids have to be read by the bean deserializer too, they are left to Jackson
+        if (deserializer != null && deserializer.getClass() == AsPropertyTypeDeserializer.class
+                && _includeAs == JsonTypeInfo.As.PROPERTY && !_typeIdVisible) {
+            return new BsonTypeDeserializer(baseType, deserializer.getTypeIdResolver(), deserializer.getPropertyName(), deserializer.getDefaultImpl());
+        }
+        return deserializer;
+    }
+}
@@ -0,0 +1,803 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.marshall.jackson.bson4jackson;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.type.TypeReference;
+import de.undercouch.bson4jackson.BsonParser;
+import de.undercouch.bson4jackson.types.JavaScript;
+import de.undercouch.bson4jackson.types.Symbol;
+import org.bson.BSON;
+import org.bson.types.BSONTimestamp;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link BsonParser} reading a document straight from the byte array holding it.
+ * <p/>
+ * Little-endian numbers and UTF-8 strings are decoded in place, without the stream wrappers and per-read
+ * bounds checks of the stream based {@link MongoBsonParser}. Both parsers produce the same tokens and
+ * values, ObjectIds and timestamps being returned as driver types.
+ * <p/>
+ * Field names are resolved from the {@link BsonSymbolTable} of the factory when it canonicalizes them.
+ * Root fields which are not accepted by the target class, and subtrees skipped by deserializers, are jumped
+ * over using their length instead of being tokenized.
+ * <p/>
+ * A parser created over a stream reads the whole document from it when the first token is requested.
+ * A parser created over a {@link ByteBuffer} copies the document into a window of {@value #WINDOW_SIZE} bytes,
+ * moved along as it is read and grown only for a string longer than the window: skipped values and binaries
+ * are never copied into it.
+ */
+class MongoBsonByteArrayParser extends BsonParser {
+
+    private static final TypeReference<Map<String, Object>> SCOPE_TYPE = new TypeReference<Map<String, Object>>() {
+    };
+    private static final int INITIAL_CAPACITY = 8192;
+    private static final int WINDOW_SIZE = 8192;
+
+    private byte[] buffer;
+    private int base;
+    private int windowEnd;
+    private int start;
+    private int limit;
+    private InputStream source;
+    private ByteBuffer document;
+    private final BsonSymbolTable symbols;
+    private final boolean internNames;
+    private Set<String> acceptedProperties;
+    private int position;
+    private int tokenPosition;
+    private Context context;
+    private boolean closed;
+
+    private byte valueType;
+    private long longValue;
+    private double doubleValue;
+    private Object value;
+
+    public MongoBsonByteArrayParser(IOContext ctxt, int jsonFeatures, int bsonFeatures, byte[] buffer, int offset, int length,
+                                    BsonSymbolTable symbols, boolean internNames) {
+        // Honoring document length keeps the super class from wrapping an input stream we don't have
+        super(ctxt, jsonFeatures, bsonFeatures | Feature.HONOR_DOCUMENT_LENGTH.getMask(), null);
+        this.buffer = buffer;
+        this.start = offset;
+        this.limit = offset + length;
+        this.windowEnd = limit;
+        this.position = offset;
+        this.symbols = symbols;
+        this.internNames = internNames;
+    }
+
+    public MongoBsonByteArrayParser(IOContext ctxt, int jsonFeatures, int bsonFeatures, InputStream source,
+                                    BsonSymbolTable symbols, boolean internNames) {
+        this(ctxt, jsonFeatures, bsonFeatures, new byte[0], 0, 0, symbols, internNames);
+        this.source = source;
+    }
+
+    /**
+     * @param document holds the document from its position to its limit, which are left untouched
+     */
+    public MongoBsonByteArrayParser(IOContext ctxt, int jsonFeatures, int bsonFeatures, ByteBuffer document,
+                                    BsonSymbolTable symbols, boolean internNames) {
+        this(ctxt, jsonFeatures, bsonFeatures, new byte[WINDOW_SIZE], 0, 0, symbols, internNames);
+        this.document = document.duplicate();
+        this.start = document.position();
+        this.limit = document.limit();
+        this.base = start;
+        this.windowEnd = start;
+        this.position = start;
+    }
+
+    /**
+     * @param acceptedProperties names of the root fields to read, null to read all of them
+     */
+    void setAcceptedProperties(Set<String> acceptedProperties) {
+        this.acceptedProperties = acceptedProperties;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        Context ctx = context;
+        if (ctx == null) {
+            if (_currToken == null) {
+                return _currToken = readRootDocument();
+            }
+            if (_currToken == JsonToken.END_OBJECT) {
+                return null;
+            }
+            throw new JsonParseException("Found element outside the document", getTokenLocation());
+        }
+        if (ctx.valuePending) {
+            tokenPosition = position;
+            ctx.valuePending = false;
+            return _currToken = readValue(ctx.type);
+        }
+        while (true) {
+            tokenPosition = position;
+            byte type = readByte();
+            if (type == BSON.UNDEFINED) {
+                skipCString();
+                continue;
+            }
+            if (type == BSON.EOO) {
+                if (position != ctx.end) {
+                    throw new JsonParseException("Document ends at " + (position - start) + " instead of " + (ctx.end - start), getTokenLocation());
+                }
+                context = ctx.parent;
+                return _currToken = ctx.array ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+            }
+            ctx.type = type;
+            if (ctx.array) {
+                skipCString();
+                ctx.fieldName = null;
+                return _currToken = readValue(type);
+            }
+            if (tokenPosition == ctx.hiddenPosition) {
+                skipCString();
+                skipValue(type);
+                continue;
+            }
+            String name = readFieldName();
+            if (ctx.parent == null && acceptedProperties != null && !acceptedProperties.contains(name)) {
+                skipValue(type);
+                continue;
+            }
+            ctx.fieldName = name;
+            ctx.valuePending = true;
+            return _currToken = JsonToken.FIELD_NAME;
+        }
+    }
+
+    /**
+     * Reads a string field of the document which has just been started, wherever it is in the document,
+     * then hides it from the next tokens. The parser stays on the start of the document.
+     *
+     * @return the value of the field, or null when the document has no such field holding a string
+     */
+    String extractString(String fieldName) throws IOException {
+        Context ctx = context;
+        if (_currToken != JsonToken.START_OBJECT || ctx == null || ctx.fieldName != null) {
+            return null;
+        }
+        int mark = position;
+        try {
+            while (true) {
+                int element = position;
+                byte type = readByte();
+                if (type == BSON.EOO) {
+                    return null;
+                }
+                String name = readFieldName();
+                if (name.equals(fieldName)) {
+                    if (type != BSON.STRING) {
+                        return null;
+                    }
+                    ctx.hiddenPosition = element;
+                    return readString();
+                }
+                if (type != BSON.UNDEFINED) {
+                    skipValue(type);
+                }
+            }
+        } finally {
+            position = mark;
+        }
+    }
+
+    @Override
+    public JsonParser skipChildren() {
+        if ((_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) && context != null) {
+            position = context.end;
+            _currToken = context.array ? JsonToken.END_ARRAY : JsonToken.END_OBJECT;
+            context = context.parent;
+        }
+        return this;
+    }
+
+    private JsonToken readRootDocument() throws IOException {
+        if (source != null) {
+            loadDocument();
+        }
+        if (limit - start < 4) {
+            throw new JsonParseException("Not enough bytes for length of document", getTokenLocation());
+        }
+        int length = readInt();
+        if (length < 5 || length > limit - start) {
+            throw new JsonParseException("Invalid document length " + length + " for " + (limit - start) + " bytes available", getTokenLocation());
+        }
+        position = start;
+        return startDocument(false);
+    }
+
+    /**
+     * Reads the document from the source, growing the buffer as bytes arrive rather than trusting the length prefix.
+     * A truncated document is kept as is, to be reported by {@link #readRootDocument()}.
+     */
+    private void loadDocument() throws IOException {
+        byte[] document = new byte[4];
+        int size = readFully(document, 0);
+        int length = size < 4 ? 0 : (document[0] & 0xff) | (document[1] & 0xff) << 8 | (document[2] & 0xff) << 16 | document[3] << 24;
+        while (size < length) {
+            if (size == document.length) {
+                document = Arrays.copyOf(document, (int) Math.min(length, Math.max(INITIAL_CAPACITY, 2L * size)));
+            }
+            int read = readFully(document, size);
+            boolean endOfStream = read < document.length;
+            size = read;
+            if (endOfStream) {
+                break;
+            }
+        }
+        buffer = document;
+        start = 0;
+        limit = size;
+        windowEnd = size;
+        position = 0;
+    }
+
+    private int readFully(byte[] document, int offset) throws IOException {
+        while (offset < document.length) {
+            int read = source.read(document, offset, document.length - offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+        return offset;
+    }
+
+    /**
+     * Starts a document which must end within its parent, and within the bytes given to the parser:
+     * the buffer may hold other documents after it.
+     */
+    private JsonToken startDocument(boolean array) throws JsonParseException {
+        int begin = position;
+        int end = begin + readInt();
+        int parentEnd = context == null ? limit : context.end;
+        if (end <= position || end > parentEnd) {
+            throw new JsonParseException("Invalid document length " + (end - begin) + " at " + (begin - start), getTokenLocation());
+        }
+        Context next;
+        if (context == null) {
+            next = new Context(null);
+        } else {
+            if (context.child == null) {
+                context.child = new Context(context);
+            }
+            next = context.child;
+        }
+        next.reset(array, end);
+        context = next;
+        return array ? JsonToken.START_ARRAY : JsonToken.START_OBJECT;
+    }
+
+    private JsonToken readValue(byte type) throws IOException {
+        valueType = type;
+        switch (type) {
+            case BSON.NUMBER:
+                doubleValue = Double.longBitsToDouble(readLong());
+                return JsonToken.VALUE_NUMBER_FLOAT;
+            case BSON.STRING:
+                value = readString();
+                return JsonToken.VALUE_STRING;
+            case BSON.OBJECT:
+                return startDocument(false);
+            case BSON.ARRAY:
+                return startDocument(true);
+            case BSON.BINARY:
+                value = readBinary();
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.OID:
+                value = readDriverObjectId();
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.BOOLEAN:
+                return readByte() != 0 ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE;
+            case BSON.DATE:
+                value = new Date(readLong());
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.NULL:
+                value = null;
+                return JsonToken.VALUE_NULL;
+            case BSON.REGEX:
+                value = readRegex();
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.REF:
+                value = readDBPointer();
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.CODE:
+                value = new JavaScript(readString());
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.SYMBOL:
+                value = new Symbol(readString());
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.CODE_W_SCOPE:
+                value = readJavaScriptWithScope();
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.NUMBER_INT:
+                longValue = readInt();
+                return JsonToken.VALUE_NUMBER_INT;
+            case BSON.TIMESTAMP:
+                int inc = readInt();
+                int time = readInt();
+                value = new BSONTimestamp(time, inc);
+                return JsonToken.VALUE_EMBEDDED_OBJECT;
+            case BSON.NUMBER_LONG:
+                longValue = readLong();
+                return JsonToken.VALUE_NUMBER_INT;
+            case BSON.MINKEY:
+                value = "MinKey";
+                return JsonToken.VALUE_STRING;
+            case BSON.MAXKEY:
+                value = "MaxKey";
+                return JsonToken.VALUE_STRING;
+            default:
+                throw new JsonParseException("Unknown element type " + type, getTokenLocation());
+        }
+    }
+
+    private void skipValue(byte type) throws IOException {
+        switch (type) {
+            case BSON.NULL:
+            case BSON.MINKEY:
+            case BSON.MAXKEY:
+                break;
+            case BSON.BOOLEAN:
+                skip(1);
+                break;
+            case BSON.NUMBER_INT:
+                skip(4);
+                break;
+            case BSON.NUMBER:
+            case BSON.DATE:
+            case BSON.TIMESTAMP:
+            case BSON.NUMBER_LONG:
+                skip(8);
+                break;
+            case BSON.OID:
+                skip(12);
+                break;
+            case BSON.STRING:
+            case BSON.CODE:
+            case BSON.SYMBOL:
+                skip(readInt());
+                break;
+            case BSON.OBJECT:
+            case BSON.ARRAY:
+            case BSON.CODE_W_SCOPE:
+                // A document length includes its own four bytes
+                int documentLength = readInt();
+                if (documentLength < 5) {
+                    throw new JsonParseException("Invalid document length " + documentLength, getTokenLocation());
+                }
+                skip(documentLength - 4);
+                break;
+            case BSON.BINARY:
+                skip(readInt());
+                skip(1);
+                break;
+            case BSON.REGEX:
+                skipCString();
+                skipCString();
+                break;
+            case BSON.REF:
+                skip(readInt());
+                skip(12);
+                break;
+            default:
+                throw new JsonParseException("Unknown element type " + type, getTokenLocation());
+        }
+    }
+
+    /**
+     * Checks that the next n bytes belong to the document: the buffer may hold other documents after it.
+     */
+    private void checkRemaining(int n) throws JsonParseException {
+        if (n < 0 || n > limit - position) {
+            throw new JsonParseException("Unexpected end of document", getTokenLocation());
+        }
+    }
+
+    /**
+     * Checks the next n bytes, and makes sure the window holds them.
+     */
+    private void require(int n) throws JsonParseException {
+        checkRemaining(n);
+        if (position + n > windowEnd || position < base) {
+            load(position, n);
+        }
+    }
+
+    /**
+     * Moves the window of a parser reading a {@link ByteBuffer} to the given position, growing it when
+     * it can't hold the n bytes found there. Parsers reading an array hold the whole document and never get here.
+     */
+    private void load(int from, int n) {
+        if (n > buffer.length) {
+            buffer = new byte[Math.max(n, 2 * buffer.length)];
+        }
+        int length = Math.min(buffer.length, limit - from);
+        document.position(from);
+        document.get(buffer, 0, length);
+        base = from;
+        windowEnd = from + length;
+    }
+
+    private void skip(int n) throws JsonParseException {
+        checkRemaining(n);
+        position += n;
+    }
+
+    private byte readByte() throws JsonParseException {
+        require(1);
+        return buffer[position++ - base];
+    }
+
+    private int readInt() throws JsonParseException {
+        require(4);
+        byte[] b = buffer;
+        int p = position - base;
+        position += 4;
+        return (b[p] & 0xff) | (b[p + 1] & 0xff) << 8 | (b[p + 2] & 0xff) << 16 | b[p + 3] << 24;
+    }
+
+    private int readBigEndianInt() throws JsonParseException {
+        require(4);
+        byte[] b = buffer;
+        int p = position - base;
+        position += 4;
+        return b[p] << 24 | (b[p + 1] & 0xff) << 16 | (b[p + 2] & 0xff) << 8 | (b[p + 3] & 0xff);
+    }
+
+    private long readLong() throws JsonParseException {
+        long low = readInt() & 0xffffffffL;
+        return low | (long) readInt() << 32;
+    }
+
+    private String readFieldName() throws JsonParseException {
+        int begin = position;
+        position = endOfCString(begin);
+        int length = position++ - begin;
+        int offset = begin - base;
+        return symbols == null ? BsonSymbolTable.decode(buffer, offset, length) : symbols.lookup(buffer, offset, length, internNames);
+    }
+
+    @Override
+    protected String readCString() throws JsonParseException {
+        int begin = position;
+        position = endOfCString(begin);
+        return decode(begin, position++ - begin);
+    }
+
+    @Override
+    protected void skipCString() throws JsonParseException {
+        position = endOfCString(position) + 1;
+    }
+
+    /**
+     * @return the position of the NUL byte ending the string, which must be found before the end of the document:
+     * the buffer may hold other documents after it. The window holds the whole string once found.
+     */
+    private int endOfCString(int begin) throws JsonParseException {
+        if (begin >= limit) {
+            throw new JsonParseException("Unexpected end of document", getTokenLocation());
+        }
+        if (begin < base || begin >= windowEnd) {
+            load(begin, 1);
+        }
+        int p = begin;
+        while (true) {
+            byte[] b = buffer;
+            int offset = base;
+            int end = windowEnd;
+            for (; p < end; p++) {
+                if (b[p - offset] == 0) {
+                    return p;
+                }
+            }
+            if (end >= limit) {
+                throw new JsonParseException("Unexpected end of document", getTokenLocation());
+            }
+            load(begin, p - begin + 1);
+        }
+    }
+
+    @Override
+    protected String readString() throws IOException {
+        int length = readInt();
+        if (length <= 0) {
+            throw new JsonParseException("Invalid number of string bytes", getTokenLocation());
+        }
+        require(length);
+        String string = decode(position, length - 1);
+        position += length;
+        return string;
+    }
+
+    private String decode(int begin, int length) {
+        return BsonSymbolTable.decode(buffer, begin - base, length);
+    }
+
+    private Object readBinary() throws JsonParseException {
+        int length = readInt();
+        byte subtype = readByte();
+        if (subtype == BSON.B_UUID) {
+            long mostSignificantBits = readLong();
+            long leastSignificantBits = readLong();
+            return new UUID(mostSignificantBits, leastSignificantBits);
+        }
+        if (subtype == BSON.B_BINARY) {
+            length = readInt();
+        }
+        checkRemaining(length);
+        byte[] bytes = new byte[length];
+        if (position >= base && position + length <= windowEnd) {
+            System.arraycopy(buffer, position - base, bytes, 0, length);
+        } else {
+            // Straight from the buffer, rather than through a window grown for this value only
+            document.position(position);
+            document.get(bytes);
+        }
+        position += length;
+        return bytes;
+    }
+
+    private ObjectId readDriverObjectId() throws JsonParseException {
+        int time = readBigEndianInt();
+        int machine = readBigEndianInt();
+        int inc = readBigEndianInt();
+        return ObjectId.createFromLegacyFormat(time, machine, inc);
+    }
+
+    private Pattern readRegex() throws IOException {
+        String regex = readCString();
+        String options = readCString();
+        return Pattern.compile(regex, regexStrToFlags(options));
+    }
+
+    private Map<String, Object> readDBPointer() throws IOException {
+        Map<String, Object> pointer = new LinkedHashMap<String, Object>();
+        pointer.put("$ns", readString());
+        pointer.put("$id", readDriverObjectId());
+        return pointer;
+    }
+
+    private JavaScript readJavaScriptWithScope() throws IOException {
+        ObjectCodec codec = getCodec();
+        if (codec == null) {
+            throw new IllegalStateException("Could not parse embedded document because BSON parser has no codec");
+        }
+        skip(4);
+        String code = readString();
+        _currToken = startDocument(false);
+        Map<String, Object> scope = codec.readValue(this, SCOPE_TYPE);
+        return new JavaScript(code, scope);
+    }
+
+    @Override
+    public boolean isExpectedStartArrayToken() {
+        int p = position;
+        if (_currToken == JsonToken.START_OBJECT && context != null && p < limit) {
+            int n = Math.min(3, limit - p);
+            if (p < base || p + n > windowEnd) {
+                load(p, n);
+            }
+            byte[] b = buffer;
+            int i = p - base;
+            if (b[i] == BSON.EOO || (p + 2 < limit && b[i + 1] == '0' && b[i + 2] == 0)) {
+                context.array = true;
+                _currToken = JsonToken.START_ARRAY;
+                return true;
+            }
+        }
+        return _currToken == JsonToken.START_ARRAY;
+    }
+
+    @Override
+    public String getCurrentName() {
+        return context == null ? null : context.fieldName;
+    }
+
+    @Override
+    public byte getCurrentBsonType() {
+        return context == null ? BSON.UNDEFINED : context.type;
+    }
+
+    @Override
+    public String getText() throws IOException {
+        JsonToken token = _currToken;
+        if (token == null) {
+            return null;
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            return context.fieldName;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            return (String) value;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return String.valueOf(getNumberValue());
+        }
+        if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            return String.valueOf(value);
+        }
+        return token.asString();
+    }
+
+    @Override
+    public char[] getTextCharacters() throws IOException {
+        String text = getText();
+        return text == null ? null : text.toCharArray();
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+        String text = getText();
+        return text == null ? 0 : text.length();
+    }
+
+    @Override
+    public int getTextOffset() {
+        return 0;
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return false;
+    }
+
+    @Override
+    public NumberType getNumberType() {
+        if (_currToken == JsonToken.VALUE_NUMBER_INT) {
+            return valueType == BSON.NUMBER_INT ? NumberType.INT : NumberType.LONG;
+        }
+        if (_currToken == JsonToken.VALUE_NUMBER_FLOAT) {
+            return NumberType.DOUBLE;
+        }
+        return null;
+    }
+
+    @Override
+    public Number getNumberValue() throws IOException {
+        NumberType type = checkNumeric();
+        if (type == NumberType.INT) {
+            return Integer.valueOf((int) longValue);
+        }
+        if (type == NumberType.LONG) {
+            return Long.valueOf(longValue);
+        }
+        return Double.valueOf(doubleValue);
+    }
+
+    @Override
+    public int getIntValue() throws IOException {
+        return checkNumeric() == NumberType.DOUBLE ? (int) doubleValue : (int) longValue;
+    }
+
+    @Override
+    public long getLongValue() throws IOException {
+        return checkNumeric() == NumberType.DOUBLE ? (long) doubleValue : longValue;
+    }
+
+    @Override
+    public float getFloatValue() throws IOException {
+        return checkNumeric() == NumberType.DOUBLE ? (float) doubleValue : (float) longValue;
+    }
+
+    @Override
+    public double getDoubleValue() throws IOException {
+        return checkNumeric() == NumberType.DOUBLE ? doubleValue : (double) longValue;
+    }
+
+    private NumberType checkNumeric() throws JsonParseException {
+        NumberType type = getNumberType();
+        if (type == null) {
+            throw _constructError("Current token (" + _currToken + ") not numeric, can not use numeric value accessors");
+        }
+        return type;
+    }
+
+    @Override
+    public byte[] getBinaryValue(Base64Variant variant) throws IOException {
+        if (_currToken != JsonToken.VALUE_EMBEDDED_OBJECT || !(value instanceof byte[])) {
+            throw _constructError("Current token (" + _currToken + ") is not binary data");
+        }
+        return (byte[]) value;
+    }
+
+    /**
+     * Like the stream parser, returns the value of any scalar token: deserializers such as the
+     * {@link java.util.Date} one rely on it to read numbers and strings.
+     */
+    @Override
+    public Object getEmbeddedObject() throws IOException {
+        JsonToken token = _currToken;
+        if (token == JsonToken.VALUE_EMBEDDED_OBJECT || token == JsonToken.VALUE_STRING) {
+            return value;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return getNumberValue();
+        }
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) {
+            return Boolean.valueOf(token == JsonToken.VALUE_TRUE);
+        }
+        return null;
+    }
+
+    @Override
+    public JsonLocation getTokenLocation() {
+        return new JsonLocation(null, tokenPosition - start, -1L, -1, -1);
+    }
+
+    @Override
+    public JsonLocation getCurrentLocation() {
+        return new JsonLocation(null, position - start, -1L, -1, -1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed && source != null && (_ioContext.isResourceManaged() || isEnabled(JsonParser.Feature.AUTO_CLOSE_SOURCE))) {
+            source.close();
+        }
+        closed = true;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private static class Context {
+
+        final Context parent;
+        Context child;
+        boolean array;
+        byte type;
+        String fieldName;
+        boolean valuePending;
+        int end;
+        int hiddenPosition;
+
+        Context(Context parent) {
+            this.parent = parent;
+        }
+
+        void reset(boolean array, int end) {
+            this.array = array;
+            this.end = end;
+            this.type = 0;
+            this.fieldName = null;
+            this.valuePending = false;
+            this.hiddenPosition = -1;
+        }
+    }
+}
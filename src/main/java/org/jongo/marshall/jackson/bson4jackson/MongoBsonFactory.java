@@ -26,18 +26,69 @@ import de.undercouch.bson4jackson.BsonParser;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Set;
 
 public class MongoBsonFactory extends BsonFactory {
 
+    private final BsonSymbolTable symbols = new BsonSymbolTable();
+
     public static BsonFactory createFactory() {
         BsonFactory factory = new MongoBsonFactory();
         factory.enable(BsonParser.Feature.HONOR_DOCUMENT_LENGTH);
         return factory;
     }
 
+    /**
+     * Documents read from a stream are parsed from a byte array when their length is honored,
+     * the stream being read up to the end of the document.
+     */
     @Override
     protected BsonParser _createParser(InputStream in, IOContext ctxt) {
-        BsonParser p = new MongoBsonParser(ctxt, _parserFeatures, _bsonParserFeatures, in);
+        BsonParser p;
+        if (isEnabled(BsonParser.Feature.HONOR_DOCUMENT_LENGTH)) {
+            p = new MongoBsonByteArrayParser(ctxt, _parserFeatures, _bsonParserFeatures, in, getSymbolTable(), isEnabled(Feature.INTERN_FIELD_NAMES));
+        } else {
+            p = new MongoBsonParser(ctxt, _parserFeatures, _bsonParserFeatures, in);
+        }
+        ObjectCodec codec = getCodec();
+        if (codec != null) {
+            p.setCodec(codec);
+        }
+        return p;
+    }
+
+    @Override
+    protected BsonParser _createParser(byte[] data, int offset, int len, IOContext ctxt) {
+        return createByteArrayParser(data, offset, len, ctxt, null);
+    }
+
+    /**
+     * Creates a parser skipping the root fields of the document which are not in acceptedProperties.
+     */
+    public BsonParser createParser(byte[] data, int offset, int len, Set<String> acceptedProperties) {
+        return createByteArrayParser(data, offset, len, _createContext(data, true), acceptedProperties);
+    }
+
+    /**
+     * Creates a parser reading the document held by the buffer through a window, rather than from a copy of the whole document.
+     *
+     * @param acceptedProperties names of the root fields to read, null to read all of them
+     */
+    public BsonParser createParser(ByteBuffer document, Set<String> acceptedProperties) {
+        MongoBsonByteArrayParser p = new MongoBsonByteArrayParser(_createContext(document, true), _parserFeatures, _bsonParserFeatures,
+                document, getSymbolTable(), isEnabled(Feature.INTERN_FIELD_NAMES));
+        return configure(p, acceptedProperties);
+    }
+
+    private BsonParser createByteArrayParser(byte[] data, int offset, int len, IOContext ctxt, Set<String> acceptedProperties) {
+        MongoBsonByteArrayParser p = new MongoBsonByteArrayParser(ctxt, _parserFeatures, _bsonParserFeatures, data, offset, len,
+                getSymbolTable(), isEnabled(Feature.INTERN_FIELD_NAMES));
+        return configure(p, acceptedProperties);
+    }
+
+    private BsonParser configure(MongoBsonByteArrayParser p, Set<String> acceptedProperties) {
+        p.setAcceptedProperties(acceptedProperties);
         ObjectCodec codec = getCodec();
         if (codec != null) {
             p.setCodec(codec);
@@ -45,6 +96,10 @@ public class MongoBsonFactory extends BsonFactory {
         return p;
     }
 
+    private BsonSymbolTable getSymbolTable() {
+        return isEnabled(Feature.CANONICALIZE_FIELD_NAMES) ? symbols : null;
+    }
+
     @Override
     public BsonGenerator createGenerator(OutputStream out, JsonEncoding enc) throws IOException {
         IOContext ctxt = _createContext(out, true);
@@ -16,6 +16,7 @@
 
 package org.jongo.marshall.jackson.bson4jackson;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import de.undercouch.bson4jackson.BsonConstants;
 import de.undercouch.bson4jackson.BsonGenerator;
 import de.undercouch.bson4jackson.io.ByteOrderUtil;
@@ -26,6 +27,7 @@ import org.bson.types.MinKey;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
 
 class MongoBsonGenerator extends BsonGenerator {
 
@@ -33,6 +35,24 @@ class MongoBsonGenerator extends BsonGenerator {
         super(jsonFeatures, bsonFeatures, out);
     }
 
+    /**
+     * Copies the document straight into outputs which are also channels: writing into an {@link OutputStream}
+     * goes through a temporary array.
+     */
+    @Override
+    public void close() throws IOException {
+        if (_out instanceof WritableByteChannel && !isEnabled(Feature.ENABLE_STREAMING) && !isClosed()) {
+            if (isEnabled(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                while (_currentDocument != null) {
+                    writeEndObject();
+                }
+            }
+            _buffer.writeTo((WritableByteChannel) _out);
+            _buffer.clear();
+        }
+        super.close();
+    }
+
     public void writeNativeObjectId(org.bson.types.ObjectId objectId) throws IOException {
         _writeArrayFieldNameIfNeeded();
         _verifyValueWrite("write datetime");
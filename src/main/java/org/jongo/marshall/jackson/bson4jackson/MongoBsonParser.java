@@ -26,6 +26,10 @@ import org.bson.types.BSONTimestamp;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Parses documents from streams when their length is not honored, converting bson4jackson ids and timestamps
+ * into driver types. Other documents are parsed by {@link MongoBsonByteArrayParser}, which decodes them directly.
+ */
 class MongoBsonParser extends BsonParser {
 
     public MongoBsonParser(IOContext ctxt, int jsonFeatures, int bsonFeatures, InputStream in) {
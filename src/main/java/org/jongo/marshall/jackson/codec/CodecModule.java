@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.deser.Deserializers;
+import com.fasterxml.jackson.databind.ser.Serializers;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+/**
+ * Uses the codecs generated by {@link JongoEntityProcessor} for classes annotated with {@link JongoEntity}.
+ * Classes without a generated codec are left to Jackson.
+ * <p/>
+ * Codecs are generated for the mapping configured by default: fields of any visibility, no getters nor setters,
+ * no naming strategy, and null values either written or not. They are not used with a mapper configured otherwise,
+ * which would store documents the codecs do not know of.
+ */
+public class CodecModule extends Module {
+
+    static final String CODEC_SUFFIX = "_JongoCodec";
+
+    @Override
+    public String getModuleName() {
+        return "jongo-codec-module";
+    }
+
+    @Override
+    public Version version() {
+        return Version.unknownVersion();
+    }
+
+    @Override
+    public void setupModule(SetupContext context) {
+        context.addSerializers(new CodecSerializers());
+        context.addDeserializers(new CodecDeserializers());
+    }
+
+    /**
+     * @return the name of the codec generated for the given class, eg. "org.acme.Order_Line_JongoCodec" for org.acme.Order.Line
+     */
+    static String getCodecName(Class<?> type) {
+        String name = type.getName();
+        int packageEnd = name.lastIndexOf('.') + 1;
+        return name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_') + CODEC_SUFFIX;
+    }
+
+    static Object newCodec(Class<?> type, String kind) {
+        if (!type.isAnnotationPresent(JongoEntity.class)) {
+            return null;
+        }
+        try {
+            ClassLoader loader = type.getClassLoader();
+            return Class.forName(getCodecName(type) + "$" + kind, true, loader).newInstance();
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to create " + kind + " codec for " + type, e);
+        }
+    }
+
+    static boolean isGeneratedFor(SerializationConfig config) {
+        JsonInclude.Include inclusion = config.getSerializationInclusion();
+        if (inclusion != JsonInclude.Include.ALWAYS && inclusion != JsonInclude.Include.NON_NULL) {
+            return false;
+        }
+        return isGeneratedFor(config, !config.getDefaultVisibilityChecker().isGetterVisible(Probe.GETTER));
+    }
+
+    static boolean isGeneratedFor(DeserializationConfig config) {
+        return isGeneratedFor(config, !config.getDefaultVisibilityChecker().isSetterVisible(Probe.SETTER));
+    }
+
+    private static boolean isGeneratedFor(MapperConfig<?> config, boolean fieldsOnly) {
+        return fieldsOnly && config.getPropertyNamingStrategy() == null
+                && config.getDefaultVisibilityChecker().isFieldVisible(Probe.FIELD);
+    }
+
+    private static class CodecSerializers extends Serializers.Base {
+
+        @Override
+        public JsonSerializer<?> findSerializer(SerializationConfig config, JavaType type, BeanDescription beanDesc) {
+            return isGeneratedFor(config) ? (JsonSerializer<?>) newCodec(type.getRawClass(), "Serializer") : null;
+        }
+    }
+
+    private static class CodecDeserializers extends Deserializers.Base {
+
+        @Override
+        public JsonDeserializer<?> findBeanDeserializer(JavaType type, DeserializationConfig config, BeanDescription beanDesc) throws JsonMappingException {
+            return isGeneratedFor(config) ? (JsonDeserializer<?>) newCodec(type.getRawClass(), "Deserializer") : null;
+        }
+    }
+
+    /**
+     * Members checked against the visibility configured on the mapper.
+     */
+    @SuppressWarnings("unused")
+    private static class Probe {
+
+        private static final Field FIELD;
+        private static final Method GETTER;
+        private static final Method SETTER;
+
+        static {
+            try {
+                FIELD = Probe.class.getDeclaredField("value");
+                GETTER = Probe.class.getMethod("getValue");
+                SETTER = Probe.class.getMethod("setValue", String.class);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException(e);
+            } catch (NoSuchFieldException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private String value;
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+    }
+}
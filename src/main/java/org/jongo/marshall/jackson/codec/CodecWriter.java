@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.codec;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the source of the codec generated for a {@link JongoEntity}.
+ * <p/>
+ * Properties holding strings, booleans and numbers are read and written directly,
+ * the others are delegated to the serializers and deserializers resolved by Jackson.
+ */
+class CodecWriter {
+
+    private static final Map<String, String[]> SCALARS = new HashMap<String, String[]>();
+
+    static {
+        scalar("boolean", "_parseBooleanPrimitive", "writeBooleanField");
+        scalar("java.lang.Boolean", "_parseBoolean", "writeBooleanField");
+        scalar("short", "_parseShortPrimitive", "writeNumberField");
+        scalar("java.lang.Short", "_parseShort", "writeNumberField");
+        scalar("int", "_parseIntPrimitive", "writeNumberField");
+        scalar("java.lang.Integer", "_parseInteger", "writeNumberField");
+        scalar("long", "_parseLongPrimitive", "writeNumberField");
+        scalar("java.lang.Long", "_parseLong", "writeNumberField");
+        scalar("float", "_parseFloatPrimitive", "writeNumberField");
+        scalar("java.lang.Float", "_parseFloat", "writeNumberField");
+        scalar("double", "_parseDoublePrimitive", "writeNumberField");
+        scalar("java.lang.Double", "_parseDouble", "writeNumberField");
+        scalar("java.lang.String", "_parseString", "writeStringField");
+    }
+
+    private static void scalar(String type, String parseMethod, String writeMethod) {
+        SCALARS.put(type, new String[]{parseMethod, writeMethod});
+    }
+
+    private final String packageName;
+    private final String codecName;
+    private final String entity;
+    private final List<EntityProperty> properties;
+    private PrintWriter out;
+
+    CodecWriter(String packageName, String codecName, String entity, List<EntityProperty> properties) {
+        this.packageName = packageName;
+        this.codecName = codecName;
+        this.entity = entity;
+        this.properties = properties;
+    }
+
+    void write(PrintWriter writer) {
+        out = writer;
+        if (packageName.length() > 0) {
+            line(0, "package " + packageName + ";");
+            line(0, "");
+        }
+        line(0, "import com.fasterxml.jackson.annotation.JsonInclude;");
+        line(0, "import com.fasterxml.jackson.core.JsonGenerator;");
+        line(0, "import com.fasterxml.jackson.core.JsonParser;");
+        line(0, "import com.fasterxml.jackson.core.JsonToken;");
+        line(0, "import com.fasterxml.jackson.core.type.TypeReference;");
+        line(0, "import com.fasterxml.jackson.databind.DeserializationContext;");
+        line(0, "import com.fasterxml.jackson.databind.JsonDeserializer;");
+        line(0, "import com.fasterxml.jackson.databind.JsonMappingException;");
+        line(0, "import com.fasterxml.jackson.databind.JsonSerializer;");
+        line(0, "import com.fasterxml.jackson.databind.SerializerProvider;");
+        line(0, "import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;");
+        line(0, "import com.fasterxml.jackson.databind.deser.std.StdDeserializer;");
+        line(0, "import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;");
+        line(0, "import com.fasterxml.jackson.databind.jsontype.TypeSerializer;");
+        line(0, "import org.jongo.marshall.jackson.oid.ObjectIdDeserializer;");
+        line(0, "import org.jongo.marshall.jackson.oid.ObjectIdSerializer;");
+        line(0, "");
+        line(0, "import java.io.IOException;");
+        line(0, "");
+        line(0, "/**");
+        line(0, " * BSON codec of {@link " + entity + "}, generated by " + JongoEntityProcessor.class.getName() + ".");
+        line(0, " */");
+        line(0, "public final class " + codecName + " {");
+        line(0, "");
+        line(1, "private " + codecName + "() {");
+        line(1, "}");
+        line(0, "");
+        writeSerializer();
+        line(0, "");
+        writeDeserializer();
+        line(0, "}");
+        out.flush();
+    }
+
+    private void writeSerializer() {
+        line(1, "public static final class Serializer extends JsonSerializer<" + entity + "> {");
+        line(0, "");
+        line(2, "private static final ObjectIdSerializer OBJECT_ID_SERIALIZER = new ObjectIdSerializer();");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public Class<" + entity + "> handledType() {");
+        line(3, "return " + entity + ".class;");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public void serialize(" + entity + " value, JsonGenerator jgen, SerializerProvider provider) throws IOException {");
+        line(3, "jgen.writeStartObject();");
+        line(3, "writeFields(value, jgen, provider);");
+        line(3, "jgen.writeEndObject();");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public void serializeWithType(" + entity + " value, JsonGenerator jgen, SerializerProvider provider, TypeSerializer typeSer) throws IOException {");
+        line(3, "typeSer.writeTypePrefixForObject(value, jgen);");
+        line(3, "writeFields(value, jgen, provider);");
+        line(3, "typeSer.writeTypeSuffixForObject(value, jgen);");
+        line(2, "}");
+        line(0, "");
+        line(2, "private void writeFields(" + entity + " value, JsonGenerator jgen, SerializerProvider provider) throws IOException {");
+        line(3, "boolean writeNulls = provider.getConfig().getSerializationInclusion() == JsonInclude.Include.ALWAYS;");
+        for (int i = 0; i < properties.size(); i++) {
+            writeField(properties.get(i), "v" + i);
+        }
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void writeField(EntityProperty property, String local) {
+        String name = quote(property.getName());
+        line(3, property.getType() + " " + local + " = " + property.read("value") + ";");
+        String[] scalar = SCALARS.get(property.getType());
+        if (property.isPrimitive()) {
+            writeValue(3, property, scalar, name, local);
+            return;
+        }
+        line(3, "if (" + local + " != null) {");
+        writeValue(4, property, scalar, name, local);
+        if (property.isObjectId()) {
+            line(3, "}");
+        } else {
+            line(3, "} else if (writeNulls) {");
+            line(4, "jgen.writeNullField(" + name + ");");
+            line(3, "}");
+        }
+    }
+
+    private void writeValue(int indent, EntityProperty property, String[] scalar, String name, String local) {
+        if (property.isObjectId()) {
+            line(indent, "jgen.writeFieldName(" + name + ");");
+            line(indent, "OBJECT_ID_SERIALIZER.serialize(" + local + ", jgen, provider);");
+        } else if (scalar != null) {
+            line(indent, "jgen." + scalar[1] + "(" + name + ", " + local + ");");
+        } else {
+            line(indent, "jgen.writeFieldName(" + name + ");");
+            line(indent, "provider.defaultSerializeValue(" + local + ", jgen);");
+        }
+    }
+
+    private void writeDeserializer() {
+        line(1, "public static final class Deserializer extends StdDeserializer<" + entity + "> implements ResolvableDeserializer {");
+        line(0, "");
+        line(2, "private static final ObjectIdDeserializer OBJECT_ID_DESERIALIZER = new ObjectIdDeserializer();");
+        List<Integer> delegated = new ArrayList<Integer>();
+        for (int i = 0; i < properties.size(); i++) {
+            EntityProperty property = properties.get(i);
+            if (!property.isObjectId() && !SCALARS.containsKey(property.getType())) {
+                delegated.add(i);
+                line(2, "private JsonDeserializer<Object> deserializer" + i + ";");
+            }
+        }
+        line(0, "");
+        line(2, "public Deserializer() {");
+        line(3, "super(" + entity + ".class);");
+        line(2, "}");
+        line(0, "");
+        line(2, "public void resolve(DeserializationContext ctxt) throws JsonMappingException {");
+        for (Integer i : delegated) {
+            line(3, "deserializer" + i + " = ctxt.findRootValueDeserializer(" + javaType(properties.get(i)) + ");");
+        }
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public boolean isCachable() {");
+        line(3, "return true;");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public Object deserializeWithType(JsonParser jp, DeserializationContext ctxt, TypeDeserializer typeDeserializer) throws IOException {");
+        line(3, "return typeDeserializer.deserializeTypedFromObject(jp, ctxt);");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "public " + entity + " deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {");
+        line(3, "return deserialize(jp, ctxt, new " + entity + "());");
+        line(2, "}");
+        line(0, "");
+        line(2, "@Override");
+        line(2, "@SuppressWarnings(\"unchecked\")");
+        line(2, "public " + entity + " deserialize(JsonParser jp, DeserializationContext ctxt, " + entity + " bean) throws IOException {");
+        line(3, "JsonToken token = jp.getCurrentToken();");
+        line(3, "if (token == JsonToken.START_OBJECT) {");
+        line(4, "token = jp.nextToken();");
+        line(3, "} else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {");
+        line(4, "throw ctxt.mappingException(handledType(), token);");
+        line(3, "}");
+        line(3, "for (; token == JsonToken.FIELD_NAME; token = jp.nextToken()) {");
+        line(4, "String name = jp.getCurrentName();");
+        line(4, "token = jp.nextToken();");
+        writeSwitch();
+        line(4, "handleUnknownProperty(jp, ctxt, bean, name);");
+        line(3, "}");
+        line(3, "return bean;");
+        line(2, "}");
+        line(1, "}");
+    }
+
+    private void writeSwitch() {
+        Map<Integer, List<Integer>> byHash = new LinkedHashMap<Integer, List<Integer>>();
+        for (int i = 0; i < properties.size(); i++) {
+            int hash = properties.get(i).getName().hashCode();
+            List<Integer> sameHash = byHash.get(hash);
+            if (sameHash == null) {
+                sameHash = new ArrayList<Integer>();
+                byHash.put(hash, sameHash);
+            }
+            sameHash.add(i);
+        }
+        if (byHash.isEmpty()) {
+            return;
+        }
+        line(4, "switch (name.hashCode()) {");
+        for (Map.Entry<Integer, List<Integer>> entry : byHash.entrySet()) {
+            line(5, "case " + entry.getKey() + ":");
+            for (Integer i : entry.getValue()) {
+                EntityProperty property = properties.get(i);
+                line(6, "if (name.equals(" + quote(property.getName()) + ")) {");
+                line(7, property.write("bean", readValue(property, i)) + ";");
+                line(7, "continue;");
+                line(6, "}");
+            }
+            line(6, "break;");
+        }
+        line(4, "}");
+    }
+
+    private String readValue(EntityProperty property, int index) {
+        String nullValue = property.isPrimitive() ? "(" + property.getType() + ") 0" : "null";
+        if (property.isObjectId()) {
+            return "token == JsonToken.VALUE_NULL ? null : OBJECT_ID_DESERIALIZER.deserialize(jp, ctxt)";
+        }
+        String[] scalar = SCALARS.get(property.getType());
+        if (scalar != null) {
+            String parse = scalar[0] + "(jp, ctxt)";
+            return property.isPrimitive() ? parse : "token == JsonToken.VALUE_NULL ? null : " + parse;
+        }
+        String boxed = property.isPrimitive() ? box(property.getType()) : property.getType();
+        return "token == JsonToken.VALUE_NULL ? " + nullValue + " : (" + boxed + ") deserializer" + index + ".deserialize(jp, ctxt)";
+    }
+
+    private static String javaType(EntityProperty property) {
+        if (property.isParameterized()) {
+            return "ctxt.getTypeFactory().constructType(new TypeReference<" + property.getType() + ">() {})";
+        }
+        return "ctxt.constructType(" + property.getRawType() + ".class)";
+    }
+
+    private static String box(String primitive) {
+        return "char".equals(primitive) ? "java.lang.Character" : "java.lang.Byte";
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private void line(int indent, String code) {
+        for (int i = 0; i < indent; i++) {
+            out.print("    ");
+        }
+        out.println(code);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.codec;
+
+/**
+ * A property of a {@link JongoEntity}, read and written either through its field or through its accessors.
+ */
+class EntityProperty {
+
+    private final String name;
+    private final String type;
+    private final String rawType;
+    private final boolean primitive;
+    private final String fieldName;
+    private final String getter;
+    private final String setter;
+    private final boolean objectId;
+
+    EntityProperty(String name, String type, String rawType, boolean primitive,
+                   String fieldName, String getter, String setter, boolean objectId) {
+        this.name = name;
+        this.type = type;
+        this.rawType = rawType;
+        this.primitive = primitive;
+        this.fieldName = fieldName;
+        this.getter = getter;
+        this.setter = setter;
+        this.objectId = objectId;
+    }
+
+    /**
+     * @return the name of the property in the document
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return the source code of the property type
+     */
+    String getType() {
+        return type;
+    }
+
+    /**
+     * @return the source code of the property type without its type arguments
+     */
+    String getRawType() {
+        return rawType;
+    }
+
+    boolean isParameterized() {
+        return !type.equals(rawType);
+    }
+
+    boolean isPrimitive() {
+        return primitive;
+    }
+
+    boolean isObjectId() {
+        return objectId;
+    }
+
+    String read(String target) {
+        return getter == null ? target + "." + fieldName : target + "." + getter + "()";
+    }
+
+    String write(String target, String value) {
+        return setter == null ? target + "." + fieldName + " = " + value : target + "." + setter + "(" + value + ")";
+    }
+}
@@ -0,0 +1,373 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.codec;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a BSON codec for each class annotated with {@link JongoEntity}, picked up at runtime by {@link CodecModule}.
+ * <p/>
+ * The processor has to be enabled on the compiler, eg. with <code>javac -processor org.jongo.marshall.jackson.codec.JongoEntityProcessor</code>.
+ * <p/>
+ * Properties are the non static and non transient fields of the class and its superclasses, as mapped by Jongo.
+ * A property is accessed through its field when it is visible from the package of the class, or through its getter and setter.
+ * {@link org.jongo.marshall.jackson.oid.MongoId}, {@link org.jongo.marshall.jackson.oid.MongoObjectId},
+ * <code>@JsonProperty</code> and <code>@JsonIgnore</code> are honoured.
+ * Classes using any other Jackson annotation, or with a property the codec cannot access, are reported with a warning
+ * and left to Jackson.
+ */
+@SupportedAnnotationTypes("org.jongo.marshall.jackson.codec.JongoEntity")
+public class JongoEntityProcessor extends AbstractProcessor {
+
+    private static final String JACKSON_ANNOTATIONS = "com.fasterxml.jackson.";
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+    private static final String MONGO_ID = "org.jongo.marshall.jackson.oid.MongoId";
+    private static final String ID = "org.jongo.marshall.jackson.oid.Id";
+    private static final String MONGO_OBJECT_ID = "org.jongo.marshall.jackson.oid.MongoObjectId";
+    private static final String OBJECT_ID = "org.jongo.marshall.jackson.oid.ObjectId";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(JongoEntity.class)) {
+            try {
+                generateCodec(element);
+            } catch (UnsupportedEntityException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "No codec generated for " + element + ", it will be mapped by Jackson: " + e.getMessage(), e.element);
+            } catch (IOException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Unable to write codec of " + element + ": " + e.getMessage(), element);
+            }
+        }
+        return true;
+    }
+
+    private void generateCodec(Element element) throws UnsupportedEntityException, IOException {
+        if (element.getKind() != ElementKind.CLASS) {
+            throw new UnsupportedEntityException("only classes are supported", element);
+        }
+        TypeElement type = (TypeElement) element;
+        checkClass(type);
+        List<EntityProperty> properties = introspect(type);
+        checkConstructor(type);
+
+        String packageName = getElements().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = getElements().getBinaryName(type).toString();
+        String codecName = binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_') + CodecModule.CODEC_SUFFIX;
+        String qualifiedCodecName = packageName.length() > 0 ? packageName + "." + codecName : codecName;
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedCodecName, type);
+        PrintWriter writer = new PrintWriter(file.openWriter());
+        try {
+            new CodecWriter(packageName, codecName, type.getQualifiedName().toString(), properties).write(writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void checkClass(TypeElement type) throws UnsupportedEntityException {
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new UnsupportedEntityException("abstract classes are not supported", type);
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedEntityException("generic classes are not supported", type);
+        }
+        for (Element e = type; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedEntityException("private classes are not supported", type);
+            }
+            if (e.getEnclosingElement().getKind() != ElementKind.PACKAGE && !e.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnsupportedEntityException("inner classes are not supported", type);
+            }
+        }
+    }
+
+    private void checkConstructor(TypeElement type) throws UnsupportedEntityException {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && isAccessible(constructor, type)) {
+                return;
+            }
+        }
+        throw new UnsupportedEntityException("no accessible constructor without arguments", type);
+    }
+
+    private List<EntityProperty> introspect(TypeElement type) throws UnsupportedEntityException {
+        Map<String, EntityProperty> properties = new LinkedHashMap<String, EntityProperty>();
+        for (TypeElement declaringType : getHierarchy(type)) {
+            checkAnnotations(declaringType, declaringType.getAnnotationMirrors());
+            for (Element member : declaringType.getEnclosedElements()) {
+                if (member.getKind() == ElementKind.METHOD || member.getKind() == ElementKind.CONSTRUCTOR) {
+                    checkAnnotations(member, member.getAnnotationMirrors());
+                }
+            }
+            for (VariableElement field : ElementFilter.fieldsIn(declaringType.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                EntityProperty property = introspect(type, field);
+                if (property == null) {
+                    continue;
+                }
+                if (properties.containsKey(property.getName())) {
+                    throw new UnsupportedEntityException("property '" + property.getName() + "' is declared twice", field);
+                }
+                properties.put(property.getName(), property);
+            }
+        }
+        return new ArrayList<EntityProperty>(properties.values());
+    }
+
+    private EntityProperty introspect(TypeElement type, VariableElement field) throws UnsupportedEntityException {
+        String fieldName = field.getSimpleName().toString();
+        String name = fieldName;
+        boolean objectId = false;
+        for (AnnotationMirror annotation : field.getAnnotationMirrors()) {
+            String annotationName = getName(annotation);
+            if (JSON_IGNORE.equals(annotationName)) {
+                if (!Boolean.FALSE.equals(getValue(annotation))) {
+                    return null;
+                }
+            } else if (JSON_PROPERTY.equals(annotationName)) {
+                Object value = getValue(annotation);
+                if (value != null && value.toString().length() > 0) {
+                    name = value.toString();
+                }
+            } else if (MONGO_ID.equals(annotationName) || ID.equals(annotationName)) {
+                name = "_id";
+            } else if (MONGO_OBJECT_ID.equals(annotationName) || OBJECT_ID.equals(annotationName)) {
+                objectId = true;
+            } else {
+                checkAnnotation(field, annotation);
+            }
+        }
+
+        TypeMirror fieldType = getTypes().asMemberOf((DeclaredType) type.asType(), field);
+        String typeSource = toSource(fieldType, field);
+        String rawTypeSource = toSource(getTypes().erasure(fieldType), field);
+        if (objectId && !"java.lang.String".equals(typeSource)) {
+            throw new UnsupportedEntityException("@MongoObjectId is only supported on String fields", field);
+        }
+        boolean primitive = fieldType.getKind().isPrimitive();
+
+        if (isAccessible(field, type)) {
+            return new EntityProperty(name, typeSource, rawTypeSource, primitive, fieldName, null, null, objectId);
+        }
+        String getter = findGetter(type, fieldName, fieldType);
+        String setter = findSetter(type, fieldName, fieldType);
+        if (getter == null || setter == null) {
+            throw new UnsupportedEntityException("field '" + fieldName + "' is neither accessible nor exposed by a getter and a setter", field);
+        }
+        return new EntityProperty(name, typeSource, rawTypeSource, primitive, fieldName, getter, setter, objectId);
+    }
+
+    private List<TypeElement> getHierarchy(TypeElement type) {
+        LinkedList<TypeElement> hierarchy = new LinkedList<TypeElement>();
+        for (TypeElement t = type; t != null; t = getSuperclass(t)) {
+            if (Object.class.getName().equals(t.getQualifiedName().toString())) {
+                break;
+            }
+            hierarchy.addFirst(t);
+        }
+        return hierarchy;
+    }
+
+    private TypeElement getSuperclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+    }
+
+    private void checkAnnotations(Element element, List<? extends AnnotationMirror> annotations) throws UnsupportedEntityException {
+        for (AnnotationMirror annotation : annotations) {
+            String name = getName(annotation);
+            if (name.equals(MONGO_ID) || name.equals(ID) || name.equals(MONGO_OBJECT_ID) || name.equals(OBJECT_ID)) {
+                throw new UnsupportedEntityException("@" + getSimpleName(annotation) + " is only supported on fields", element);
+            }
+            checkAnnotation(element, annotation);
+        }
+    }
+
+    /**
+     * Rejects Jackson annotations, and annotations bundling Jackson annotations.
+     */
+    private void checkAnnotation(Element element, AnnotationMirror annotation) throws UnsupportedEntityException {
+        if (isJacksonAnnotation(annotation)) {
+            throw new UnsupportedEntityException("@" + getSimpleName(annotation) + " is only supported by Jackson", element);
+        }
+        for (AnnotationMirror meta : annotation.getAnnotationType().asElement().getAnnotationMirrors()) {
+            if (isJacksonAnnotation(meta)) {
+                throw new UnsupportedEntityException("@" + getSimpleName(annotation) + " is only supported by Jackson", element);
+            }
+        }
+    }
+
+    private boolean isJacksonAnnotation(AnnotationMirror annotation) {
+        return getName(annotation).startsWith(JACKSON_ANNOTATIONS);
+    }
+
+    private String findGetter(TypeElement type, String fieldName, TypeMirror fieldType) {
+        String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(getElements().getAllMembers(type))) {
+            String methodName = method.getSimpleName().toString();
+            boolean named = methodName.equals("get" + suffix) || (methodName.equals("is" + suffix) && fieldType.getKind() == TypeKind.BOOLEAN);
+            if (named && method.getParameters().isEmpty() && isAccessor(type, method)
+                    && getTypes().isSameType(getMethodType(type, method).getReturnType(), fieldType)) {
+                return methodName;
+            }
+        }
+        return null;
+    }
+
+    private String findSetter(TypeElement type, String fieldName, TypeMirror fieldType) {
+        String methodName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(getElements().getAllMembers(type))) {
+            if (method.getSimpleName().contentEquals(methodName) && method.getParameters().size() == 1 && isAccessor(type, method)) {
+                TypeMirror parameterType = getMethodType(type, method).getParameterTypes().get(0);
+                if (getTypes().isSameType(parameterType, fieldType)) {
+                    return methodName;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isAccessor(TypeElement type, ExecutableElement method) {
+        return !method.getModifiers().contains(Modifier.STATIC) && isAccessible(method, type);
+    }
+
+    private ExecutableType getMethodType(TypeElement type, ExecutableElement method) {
+        return (ExecutableType) getTypes().asMemberOf((DeclaredType) type.asType(), method);
+    }
+
+    /**
+     * @return true when the member can be used by a codec generated in the package of the given type
+     */
+    private boolean isAccessible(Element member, TypeElement type) {
+        Set<Modifier> modifiers = member.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)) {
+            return false;
+        }
+        PackageElement codecPackage = getElements().getPackageOf(type);
+        return modifiers.contains(Modifier.PUBLIC) || getElements().getPackageOf(member).equals(codecPackage);
+    }
+
+    private String toSource(TypeMirror type, Element field) throws UnsupportedEntityException {
+        if (type.getKind().isPrimitive()) {
+            return type.getKind().name().toLowerCase();
+        }
+        switch (type.getKind()) {
+            case ARRAY:
+                return toSource(((ArrayType) type).getComponentType(), field) + "[]";
+            case DECLARED:
+                DeclaredType declared = (DeclaredType) type;
+                StringBuilder source = new StringBuilder(((TypeElement) declared.asElement()).getQualifiedName());
+                List<? extends TypeMirror> arguments = declared.getTypeArguments();
+                if (!arguments.isEmpty()) {
+                    source.append('<');
+                    for (int i = 0; i < arguments.size(); i++) {
+                        source.append(i > 0 ? ", " : "").append(toSource(arguments.get(i), field));
+                    }
+                    source.append('>');
+                }
+                return source.toString();
+            case WILDCARD:
+                WildcardType wildcard = (WildcardType) type;
+                if (wildcard.getExtendsBound() != null) {
+                    return "? extends " + toSource(wildcard.getExtendsBound(), field);
+                }
+                if (wildcard.getSuperBound() != null) {
+                    return "? super " + toSource(wildcard.getSuperBound(), field);
+                }
+                return "?";
+            default:
+                throw new UnsupportedEntityException("type " + type + " is not supported", field);
+        }
+    }
+
+    private Object getValue(AnnotationMirror annotation) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private String getName(AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    private String getSimpleName(AnnotationMirror annotation) {
+        return annotation.getAnnotationType().asElement().getSimpleName().toString();
+    }
+
+    private Elements getElements() {
+        return processingEnv.getElementUtils();
+    }
+
+    private Types getTypes() {
+        return processingEnv.getTypeUtils();
+    }
+
+    private static class UnsupportedEntityException extends Exception {
+
+        private final Element element;
+
+        private UnsupportedEntityException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.fasterxml.jackson.databind.introspect.VisibilityChecker;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.jongo.marshall.jackson.bson4jackson.BsonModule;
 import org.jongo.marshall.jackson.bson4jackson.MongoBsonFactory;
+import org.jongo.marshall.jackson.codec.CodecModule;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -34,10 +35,12 @@ public abstract class AbstractMappingBuilder<T extends AbstractMappingBuilder<T>
     private ReaderCallback readerCallback;
     private WriterCallback writerCallback;
     private MapperModifier visibilityModifier;
+    private boolean partialDecoding;
 
     public AbstractMappingBuilder() {
         this(new ObjectMapper(MongoBsonFactory.createFactory()));
         registerModule(new BsonModule());
+        registerModule(new CodecModule());
         addModifier(new PropertyModifier());
         addModifier(new AnnotationModifier());
     }
@@ -57,7 +60,7 @@ public abstract class AbstractMappingBuilder<T extends AbstractMappingBuilder<T>
         }
         setDefaultCallbacksIfNone();
 
-        return new Mapping(mapper, readerCallback, writerCallback);
+        return new Mapping(mapper, readerCallback, writerCallback, partialDecoding);
     }
 
     private void setDefaultCallbacksIfNone() {
@@ -92,6 +95,14 @@ public abstract class AbstractMappingBuilder<T extends AbstractMappingBuilder<T>
         return getBuilderInstance();
     }
 
+    /**
+     * Skips, without decoding them, the fields of a document that the target class has no property for.
+     */
+    public T withPartialDecoding() {
+        partialDecoding = true;
+        return getBuilderInstance();
+    }
+
     public T setVisibilityChecker(final VisibilityChecker<?> visibilityChecker) {
         visibilityModifier = new MapperModifier() {
             public void modify(ObjectMapper mapper) {
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.configuration;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerBase;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.deser.SettableBeanProperty;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES;
+
+/**
+ * Computes the names of the properties a class can be read from, so that other fields of a document can be
+ * skipped without being decoded.
+ * <p/>
+ * Only classes read by a plain bean deserializer are constrained: custom deserializers, polymorphic types,
+ * any setters and unwrapped properties may consume any field.
+ */
+class AcceptedProperties {
+
+    static Set<String> of(ObjectMapper mapper, Class<?> clazz) {
+        DeserializationConfig config = mapper.getDeserializationConfig();
+        if (config.isEnabled(FAIL_ON_UNKNOWN_PROPERTIES)) {
+            return null;
+        }
+        JavaType type = config.constructType(clazz);
+        JsonDeserializer<Object> deserializer;
+        try {
+            DefaultDeserializationContext context = ((DefaultDeserializationContext) mapper.getDeserializationContext())
+                    .createInstance(config, null, null);
+            deserializer = context.findRootValueDeserializer(type);
+        } catch (JsonMappingException e) {
+            return null;
+        }
+        if (!(deserializer instanceof BeanDeserializerBase)) {
+            return null;
+        }
+        BeanDescription description = config.introspect(type);
+        if (description.findAnySetter() != null || hasUnwrappedProperty(config, description)) {
+            return null;
+        }
+
+        BeanDeserializerBase beanDeserializer = (BeanDeserializerBase) deserializer;
+        Set<String> names = new HashSet<String>();
+        for (Object name : beanDeserializer.getKnownPropertyNames()) {
+            names.add(name.toString());
+        }
+        Iterator<SettableBeanProperty> properties = beanDeserializer.properties();
+        while (properties.hasNext()) {
+            TypeDeserializer typeDeserializer = properties.next().getValueTypeDeserializer();
+            if (typeDeserializer != null && typeDeserializer.getTypeInclusion() == JsonTypeInfo.As.EXTERNAL_PROPERTY) {
+                names.add(typeDeserializer.getPropertyName());
+            }
+        }
+        return names;
+    }
+
+    private static boolean hasUnwrappedProperty(DeserializationConfig config, BeanDescription description) {
+        AnnotationIntrospector introspector = config.getAnnotationIntrospector();
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            AnnotatedMember[] members = {property.getField(), property.getSetter(), property.getConstructorParameter()};
+            for (AnnotatedMember member : members) {
+                if (member != null && introspector.findUnwrappingNameTransformer(member) != null) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
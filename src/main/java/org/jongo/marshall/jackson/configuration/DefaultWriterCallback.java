@@ -19,7 +19,7 @@ package org.jongo.marshall.jackson.configuration;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
-class DefaultWriterCallback implements WriterCallback {
+class DefaultWriterCallback implements WriterCallback, CacheableCallback {
     public ObjectWriter getWriter(ObjectMapper mapper, Object pojo) {
         return mapper.writer();
     }
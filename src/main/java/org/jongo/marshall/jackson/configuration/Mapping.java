@@ -20,24 +20,89 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
 public class Mapping {
 
+    private static final Set<String> ALL_PROPERTIES = new HashSet<String>();
+
     private ObjectMapper mapper;
     private ReaderCallback readerCallback;
     private WriterCallback writerCallback;
+    // Readers and writers of callbacks implementing CacheableCallback, null otherwise.
+    // Kept by the classes themselves, so that classes of other class loaders can still be unloaded
+    private final ClassValue<ObjectReader> readers;
+    private final ClassValue<AtomicReference<ObjectWriter>> writers;
+    // Properties accepted by each class when partial decoding is enabled, null otherwise
+    private final ClassValue<Set<String>> acceptedProperties;
 
     public Mapping(ObjectMapper mapper, ReaderCallback readerCallback, WriterCallback writerCallback) {
+        this(mapper, readerCallback, writerCallback, false);
+    }
+
+    public Mapping(ObjectMapper mapper, ReaderCallback readerCallback, WriterCallback writerCallback, boolean partialDecoding) {
         this.mapper = mapper;
         this.readerCallback = readerCallback;
         this.writerCallback = writerCallback;
+        this.readers = readerCallback instanceof CacheableCallback ? new ReaderCache() : null;
+        this.writers = writerCallback instanceof CacheableCallback ? new WriterCache() : null;
+        this.acceptedProperties = partialDecoding ? new AcceptedPropertiesCache() : null;
     }
 
     public ObjectReader getReader(Class<?> clazz) {
-        return readerCallback.getReader(mapper, clazz);
+        if (readers == null) {
+            return readerCallback.getReader(mapper, clazz);
+        }
+        return readers.get(clazz);
+    }
+
+    /**
+     * @return names of the root properties clazz can be read from, or null when the whole document has to be decoded
+     */
+    public Set<String> getAcceptedProperties(Class<?> clazz) {
+        if (acceptedProperties == null) {
+            return null;
+        }
+        Set<String> properties = acceptedProperties.get(clazz);
+        return properties == ALL_PROPERTIES ? null : properties;
     }
 
     public ObjectWriter getWriter(Object pojo) {
-        return writerCallback.getWriter(mapper, pojo);
+        if (writers == null || pojo == null) {
+            return writerCallback.getWriter(mapper, pojo);
+        }
+        // Writer callbacks are given an instance rather than a class, so writers are created on first write
+        AtomicReference<ObjectWriter> slot = writers.get(pojo.getClass());
+        ObjectWriter writer = slot.get();
+        if (writer == null) {
+            writer = writerCallback.getWriter(mapper, pojo);
+            slot.compareAndSet(null, writer);
+        }
+        return writer;
+    }
+
+    private class ReaderCache extends ClassValue<ObjectReader> {
+        @Override
+        protected ObjectReader computeValue(Class<?> clazz) {
+            return readerCallback.getReader(mapper, clazz);
+        }
+    }
+
+    private static class WriterCache extends ClassValue<AtomicReference<ObjectWriter>> {
+        @Override
+        protected AtomicReference<ObjectWriter> computeValue(Class<?> clazz) {
+            return new AtomicReference<ObjectWriter>();
+        }
+    }
+
+    private class AcceptedPropertiesCache extends ClassValue<Set<String>> {
+        @Override
+        protected Set<String> computeValue(Class<?> clazz) {
+            Set<String> properties = AcceptedProperties.of(mapper, clazz);
+            return properties != null ? properties : ALL_PROPERTIES;
+        }
     }
 
     public static Mapping defaultMapping() {
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import org.bson.BSONObject;
+import org.jongo.bson.PipingDBEncoder;
+
+/**
+ * Writes a query template straight into BSON, substituting each parameter placeholder
+ * with its marshalled value.
+ */
+class BsonQueryEncoder extends PipingDBEncoder {
+
+    private final Object[] values;
+
+    BsonQueryEncoder(Object[] values) {
+        this.values = values;
+    }
+
+    byte[] encode(QueryTemplate template) {
+        return encode((BSONObject) template.getSkeleton());
+    }
+
+    @Override
+    protected void _putObjectField(String name, Object value) {
+        if (value instanceof QueryTemplate.Parameter) {
+            super._putObjectField(name, values[((QueryTemplate.Parameter) value).getIndex()]);
+        } else if (value instanceof QueryTemplate.Extended) {
+            super._putObjectField(name, QueryTemplate.bind(value, values));
+        } else {
+            super._putObjectField(name, value);
+        }
+    }
+}
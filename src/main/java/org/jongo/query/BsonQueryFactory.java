@@ -17,28 +17,42 @@
 package org.jongo.query;
 
 import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
-import com.mongodb.util.JSON;
-import com.mongodb.util.JSONCallback;
 import org.bson.BSON;
 import org.bson.BSONObject;
 import org.jongo.bson.Bson;
 import org.jongo.bson.BsonDocument;
+import org.jongo.bson.TypedDBList;
 import org.jongo.marshall.Marshaller;
 import org.jongo.marshall.MarshallingException;
+import org.jongo.marshall.ValueMarshaller;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class BsonQueryFactory implements QueryFactory {
+public class BsonQueryFactory implements PreparableQueryFactory {
 
     private static final String DEFAULT_TOKEN = "#";
     private static final String MARSHALL_OPERATOR = "$marshall";
 
     private final String token;
     private final Marshaller marshaller;
+    private final QueryTemplateCache templates;
+    private final QueryParser parser;
+    private final boolean bsonOutput;
+    // Whether instances of a class have been serialized as primitives by the marshaller, kept by the class itself
+    private final ClassValue<AtomicBoolean> primitiveTypes;
+
+    private static class PrimitiveTypes extends ClassValue<AtomicBoolean> {
+        @Override
+        protected AtomicBoolean computeValue(Class<?> type) {
+            return new AtomicBoolean();
+        }
+    }
 
     private static class BsonQuery implements Query {
         private final DBObject dbo;
@@ -52,112 +66,253 @@ public class BsonQueryFactory implements QueryFactory {
         }
     }
 
+    private class BsonPreparedQuery implements PreparedQuery {
+
+        private final QueryTemplate template;
+
+        private BsonPreparedQuery(QueryTemplate template) {
+            this.template = template;
+        }
+
+        public Query bind(Object... parameters) {
+            return BsonQueryFactory.this.bind(template, parameters);
+        }
+
+        public int getParameterCount() {
+            return template.getParameterCount();
+        }
+    }
+
     public BsonQueryFactory(Marshaller marshaller) {
         this(marshaller, DEFAULT_TOKEN);
     }
 
+    public BsonQueryFactory(Marshaller marshaller, QueryParser parser) {
+        this(marshaller, DEFAULT_TOKEN, new QueryTemplateCache(), parser);
+    }
+
     public BsonQueryFactory(Marshaller marshaller, String token) {
+        this(marshaller, token, new QueryTemplateCache());
+    }
+
+    public BsonQueryFactory(Marshaller marshaller, String token, QueryTemplateCache templates) {
+        this(marshaller, token, templates, new JacksonQueryParser());
+    }
+
+    public BsonQueryFactory(Marshaller marshaller, String token, QueryTemplateCache templates, QueryParser parser) {
+        this(marshaller, token, templates, parser, false, new PrimitiveTypes());
+    }
+
+    private BsonQueryFactory(Marshaller marshaller, String token, QueryTemplateCache templates, QueryParser parser,
+                             boolean bsonOutput, ClassValue<AtomicBoolean> primitiveTypes) {
         this.token = token;
         this.marshaller = marshaller;
+        this.templates = templates;
+        this.parser = parser;
+        this.bsonOutput = bsonOutput;
+        this.primitiveTypes = primitiveTypes;
+    }
+
+    /**
+     * Returns a factory sharing this factory's template cache which writes queries straight into BSON.
+     * Queries created this way are backed by a {@link BsonDocument}: they are piped as is to the driver
+     * but their {@link DBObject} is read only.
+     */
+    public BsonQueryFactory withBsonOutput() {
+        return new BsonQueryFactory(marshaller, token, templates, parser, true, primitiveTypes);
+    }
+
+    public QueryTemplateCache getTemplateCache() {
+        return templates;
     }
 
     public Query createQuery(final String query, Object... parameters) {
 
         if (query == null) {
-            return new BsonQuery((DBObject) JSON.parse(query));
+            return new BsonQuery(null);
         }
+        return bind(getTemplate(query), parameters);
+    }
+
+    public PreparedQuery prepare(String query) {
+        if (query == null) {
+            throw new IllegalArgumentException("Cannot prepare a null query");
+        }
+        return new BsonPreparedQuery(getTemplate(query));
+    }
+
+    private QueryTemplate getTemplate(String query) {
+        QueryTemplate template = templates.get(query, token);
+        if (template == null) {
+            template = compile(query);
+            templates.put(query, token, template);
+        }
+        return template;
+    }
+
+    private Query bind(QueryTemplate template, Object[] parameters) {
+
+        String query = template.getQuery();
         if (parameters == null) {
             parameters = new Object[]{null};
         }
+        parameters = template.resolve(parameters);
+
+        if (template.getTokens().size() > parameters.length) {
+            throw new IllegalArgumentException("Not enough parameters passed to query: " + query);
+        }
+        if (template.getTokens().size() < parameters.length) {
+            throw new IllegalArgumentException("Too many parameters passed to query: " + query);
+        }
+
+        if (template.isDynamic()) {
+            return createDynamicQuery(template, parameters);
+        }
+        try {
+            Object[] values = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                values[i] = marshallParameter(parameters[i]);
+            }
+            if (bsonOutput) {
+                return createBsonQuery(template, values);
+            }
+            return new BsonQuery((DBObject) bindRoot(template, values));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse query: " + query, e);
+        }
+    }
+
+    /**
+     * Parses the query once, replacing each value token with a {@link QueryTemplate.Parameter}.
+     * Queries with tokens used as property names (eg. "{scores.#: 1}") must be parsed on each call.
+     */
+    private QueryTemplate compile(String query) {
+
+        QueryTokens tokens = QueryTokens.scan(query, token);
+        if (tokens.hasKeys()) {
+            return QueryTemplate.dynamic(query, tokens);
+        }
+
+        StringBuilder sb = new StringBuilder(query.length() + tokens.size() * 16);
+        int start = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int pos = tokens.getPosition(i);
+            sb.append(query, start, pos);
+            sb.append("{\"").append(MARSHALL_OPERATOR).append("\":").append(i).append("}");
+            start = tokens.getEnd(i);
+        }
+        sb.append(query, start, query.length());
+
+        try {
+            return QueryTemplate.compiled(query, tokens, toSkeleton(parser.parse(sb.toString())));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot parse query: " + query, e);
+        }
+    }
+
+    /**
+     * Replaces parameter placeholders and converts extended JSON documents. Those holding parameters
+     * are converted on each call, once parameters have been bound.
+     */
+    private Object toSkeleton(Object node) {
+        if (node instanceof BasicDBList) {
+            BasicDBList list = (BasicDBList) node;
+            for (int i = 0; i < list.size(); i++) {
+                list.set(i, toSkeleton(list.get(i)));
+            }
+            return list;
+        }
+        if (node instanceof BasicDBObject) {
+            BasicDBObject dbo = (BasicDBObject) node;
+            Object marshallValue = dbo.get(MARSHALL_OPERATOR);
+            if (marshallValue != null) {
+                return new QueryTemplate.Parameter(((Number) marshallValue).intValue());
+            }
+            for (Map.Entry<String, Object> entry : dbo.entrySet()) {
+                entry.setValue(toSkeleton(entry.getValue()));
+            }
+            if (ExtendedJson.isExtended(dbo)) {
+                return containsParameter(dbo) ? new QueryTemplate.Extended(dbo) : ExtendedJson.convert(dbo);
+            }
+            return dbo;
+        }
+        return node;
+    }
+
+    private boolean containsParameter(Object node) {
+        if (node instanceof QueryTemplate.Parameter) {
+            return true;
+        }
+        if (node instanceof BSONObject) {
+            BSONObject dbo = (BSONObject) node;
+            for (String key : dbo.keySet()) {
+                if (containsParameter(dbo.get(key))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Query createBsonQuery(QueryTemplate template, Object[] values) {
+        Object skeleton = template.getSkeleton();
+        if (!(skeleton instanceof BasicDBObject) || skeleton instanceof QueryTemplate.Extended || BSON.hasDecodeHooks()) {
+            // Single token, array and empty queries, and queries going through decoding hooks, are bound as usual
+            return new BsonQuery((DBObject) bindRoot(template, values));
+        }
+        byte[] bytes = new BsonQueryEncoder(values).encode(template);
+        return new BsonQuery(Bson.createDocument(bytes).toDBObject());
+    }
+
+    /**
+     * Decoding hooks are applied on each call rather than to the cached skeleton, so that hooks
+     * registered or removed after a query has been compiled are taken into account.
+     */
+    private Object bindRoot(QueryTemplate template, Object[] values) {
+        Object o = template.bind(values);
+        return !BSON.hasDecodeHooks() ? o : BSON.applyDecodingHooks(o);
+    }
+
+    private Query createDynamicQuery(QueryTemplate template, Object[] parameters) {
 
         // We have two different cases:
         //
         // - tokens as property names "{scores.#: 1}": they must be expanded before going
-        //   through the JSON parser, and their toString() is inserted in the query
+        //   through the query parser, and their toString() is inserted in the query
         //
-        // - tokens as property values "{id: #}": they are resolved by the JSON parser and
+        // - tokens as property values "{id: #}": they are resolved by the query parser and
         //   therefore marshalled as DBObjects (actually LazyDBObjects).
 
+        final String query = template.getQuery();
+        QueryTokens tokens = template.getTokens();
         StringBuilder sb = new StringBuilder();
         int paramIncrement = 0; // how many params must be skipped by the next value param
-        int paramPos = 0;       // current position in the parameter list
         int start = 0;          // start of the current string segment
-        int pos;                // position of the last token found
-        while ((pos = query.indexOf(token, start)) != -1) {
-            if (paramPos >= parameters.length) {
-                throw new IllegalArgumentException("Not enough parameters passed to query: " + query);
-            }
+        for (int paramPos = 0; paramPos < tokens.size(); paramPos++) {
+            int pos = tokens.getPosition(paramPos);
 
             // Insert chars before the token
             sb.append(query, start, pos);
 
-            // Check if the character preceding the token is one that separates values.
-            // Otherwise, it's a property name substitution
-            if (isValueToken(query, pos)) {
-                // Will be resolved by the JSON parser below
-                sb.append("{\"").append(MARSHALL_OPERATOR).append("\":").append(paramIncrement).append("}");
-                paramIncrement = 0;
-            } else {
+            if (tokens.isKey(paramPos)) {
                 // Resolve it now
                 sb.append(parameters[paramPos]);
                 paramIncrement++;
+            } else {
+                // Will be resolved by the query parser below
+                sb.append("{\"").append(MARSHALL_OPERATOR).append("\":").append(paramIncrement).append("}");
+                paramIncrement = 0;
             }
-
-            paramPos++;
-            start = pos + token.length();
+            start = tokens.getEnd(paramPos);
         }
 
         // Add remaining chars
         sb.append(query, start, query.length());
 
-        if (paramPos < parameters.length) {
-            throw new IllegalArgumentException("Too many parameters passed to query: " + query);
-        }
-
-
-        final Object[] params = parameters;
-
-        // Parse the query with a callback that will weave in marshalled parameters
         DBObject dbo;
         try {
-            dbo = (DBObject) JSON.parse(sb.toString(), new JSONCallback() {
-
-                int paramPos = 0;
-
-                @Override
-                public Object objectDone() {
-                    String name = curName();
-                    Object o = super.objectDone();
-
-                    if (o instanceof BSONObject && !(o instanceof List<?>)) {
-                        BSONObject dbo = (BSONObject) o;
-                        Object marshallValue = dbo.get(MARSHALL_OPERATOR);
-                        if (marshallValue != null) {
-                            paramPos += ((Number) marshallValue).intValue();
-                            if (paramPos >= params.length) {
-                                throw new IllegalArgumentException("Not enough parameters passed to query: " + query);
-                            }
-
-                            o = marshallParameter(params[paramPos++]);
-
-                            // Replace value set by super.objectDone()
-                            if (!isStackEmpty()) {
-                                _put(name, o);
-                            } else {
-                                o = !BSON.hasDecodeHooks() ? o : BSON.applyDecodingHooks(o);
-                                setRoot(o);
-                            }
-                        }
-                    }
-
-                    if (isStackEmpty()) {
-                        // End of object
-                    }
-
-                    return o;
-                }
-            });
-
+            Object o = new DynamicBinder(query, parameters).bind(parser.parse(sb.toString()));
+            dbo = (DBObject) (!BSON.hasDecodeHooks() ? o : BSON.applyDecodingHooks(o));
         } catch (Exception e) {
             throw new IllegalArgumentException("Cannot parse query: " + query, e);
         }
@@ -166,44 +321,23 @@ public class BsonQueryFactory implements QueryFactory {
 
     }
 
-    private boolean isValueToken(String query, int tokenIndex) {
-        for (int pos = tokenIndex; pos >= 0; pos--) {
-            char c = query.charAt(pos);
-            if (c == ':') {
-                return true;
-            } else if (c == '{' || c == '.') {
-                return false;
-            } else if (c == ',') {
-                return !isPropertyName(query, pos - 1);
-            }
-        }
-        return true;
-    }
-
-    private boolean isPropertyName(String query, int tokenIndex) {
-        for (int pos = tokenIndex; pos >= 0; pos--) {
-            char c = query.charAt(pos);
-            if (c == '[') {
-                return false;
-            } else if (c == '{') {
-                return true;
-            }
-        }
-        return false;
-    }
-
     private Object marshallParameter(Object parameter) {
         try {
-            if (parameter == null || Bson.isPrimitive(parameter)) {
-                return parameter;
+            if (parameter == null) {
+                return null;
             }
-            if (parameter instanceof Collection) {
-                return marshallCollection((Collection<?>) parameter);
+            switch (Bson.kindOf(parameter)) {
+                case COLLECTION:
+                    return marshallCollection((Collection<?>) parameter);
+                case ARRAY:
+                    return marshallArray((Object[]) parameter);
+                case ENUM:
+                    return marshallParameterAsPrimitive(parameter);
+                case OBJECT:
+                    return marshallDocument(parameter);
+                default:
+                    return parameter;
             }
-            if (parameter instanceof Object[]) {
-                return marshallArray((Object[]) parameter);
-            }
-            return marshallDocument(parameter);
         } catch (Exception e) {
             String message = String.format("Unable to marshall parameter: %s", parameter);
             throw new MarshallingException(message, e);
@@ -211,14 +345,22 @@ public class BsonQueryFactory implements QueryFactory {
     }
 
     private DBObject marshallArray(Object[] parameters) {
-        BasicDBList list = new BasicDBList();
-        for (int i = 0; i < parameters.length; i++) {
-            list.add(marshallParameter(parameters[i]));
+        Class<?> type = parameters.getClass().getComponentType();
+        if (type != Object.class && Bson.isPrimitiveType(type)) {
+            TypedDBList list = new TypedDBList(type);
+            list.addAll(Arrays.asList(parameters));
+            return list;
         }
-        return list;
+        return marshallCollection(Arrays.asList(parameters));
     }
 
     private DBObject marshallCollection(Collection<?> parameters) {
+        Class<?> type = getPrimitiveElementType(parameters);
+        if (type != null) {
+            TypedDBList list = new TypedDBList(type);
+            list.addAll(parameters);
+            return list;
+        }
         BasicDBList list = new BasicDBList();
         for (Object param : parameters) {
             list.add(marshallParameter(param));
@@ -226,34 +368,115 @@ public class BsonQueryFactory implements QueryFactory {
         return list;
     }
 
+    /**
+     * @return the class shared by all non null elements when it is a BSON primitive, otherwise null
+     */
+    private Class<?> getPrimitiveElementType(Collection<?> parameters) {
+        Class<?> type = null;
+        for (Object param : parameters) {
+            if (param == null) {
+                continue;
+            }
+            if (type == null) {
+                if (!Bson.isPrimitive(param)) {
+                    return null;
+                }
+                type = param.getClass();
+            } else if (param.getClass() != type) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Whether an instance has been serialized as a primitive (eg. with a custom serializer) is checked on each
+     * marshalled document. Classes found to be serialized as primitives are remembered and marshalled as values
+     * straight away, other instances of a class may still be serialized as documents.
+     */
     private Object marshallDocument(Object parameter) {
 
-        if (parameter instanceof Enum) {
+        AtomicBoolean serializedAsPrimitive = primitiveTypes.get(parameter.getClass());
+        if (serializedAsPrimitive.get()) {
             return marshallParameterAsPrimitive(parameter);
-        } else {
-            BsonDocument document = marshaller.marshall(parameter);
+        }
 
-            if (hasBeenSerializedAsPrimitive(document)) {
-                return marshallParameterAsPrimitive(parameter);
-            } else {
-                return document.toDBObject();
-            }
+        BsonDocument document = marshaller.marshall(parameter);
+        if (hasBeenSerializedAsPrimitive(document)) {
+            serializedAsPrimitive.set(true);
+            return marshallParameterAsPrimitive(parameter);
         }
+        return document.toDBObject();
     }
 
+    /**
+     * Values written outside of a document leave no length prefix: the document is only taken as such
+     * when its whole length prefix matches the bytes written, up to the trailing zero of the document.
+     */
     private boolean hasBeenSerializedAsPrimitive(BsonDocument document) {
-        return document.toByteArray()[0] == 0;
+        byte[] buffer = document.getBuffer();
+        int offset = document.getOffset();
+        if (buffer.length - offset < 5) {
+            return true;
+        }
+        int size = document.getSize();
+        return size < 5 || size > buffer.length - offset || buffer[offset + size - 1] != 0;
     }
 
     /**
      * The object may have been serialized to a primitive type with a
-     * custom serializer, so try again after wrapping as an object property.
+     * custom serializer, so try again as a value when the marshaller supports it,
+     * otherwise after wrapping as an object property.
      * We do this trick only as a falllback since it causes Jackson to consider the parameter
      * as "Object" and thus ignore any annotations that may exist on its actual class.
      */
     private Object marshallParameterAsPrimitive(Object parameter) {
+        if (marshaller instanceof ValueMarshaller) {
+            return ((ValueMarshaller) marshaller).marshallValue(parameter);
+        }
         Map<String, Object> primitiveWrapper = Collections.singletonMap("wrapped", parameter);
         BsonDocument document = marshaller.marshall(primitiveWrapper);
         return document.toDBObject().get("wrapped");
     }
+
+    /**
+     * Weaves marshalled parameters into a query parsed after its property name tokens have been expanded.
+     */
+    private class DynamicBinder {
+
+        private final String query;
+        private final Object[] parameters;
+        private int paramPos = 0;
+
+        private DynamicBinder(String query, Object[] parameters) {
+            this.query = query;
+            this.parameters = parameters;
+        }
+
+        private Object bind(Object node) {
+            if (node instanceof BasicDBList) {
+                BasicDBList list = (BasicDBList) node;
+                for (int i = 0; i < list.size(); i++) {
+                    list.set(i, bind(list.get(i)));
+                }
+                return list;
+            }
+            if (node instanceof BasicDBObject) {
+                BasicDBObject dbo = (BasicDBObject) node;
+                Object marshallValue = dbo.get(MARSHALL_OPERATOR);
+                if (marshallValue != null) {
+                    paramPos += ((Number) marshallValue).intValue();
+                    if (paramPos >= parameters.length) {
+                        throw new IllegalArgumentException("Not enough parameters passed to query: " + query);
+                    }
+                    return marshallParameter(parameters[paramPos++]);
+                }
+                for (Map.Entry<String, Object> entry : dbo.entrySet()) {
+                    entry.setValue(bind(entry.getValue()));
+                }
+                return ExtendedJson.isExtended(dbo) ? ExtendedJson.convert(dbo) : dbo;
+            }
+            return node;
+        }
+    }
 }
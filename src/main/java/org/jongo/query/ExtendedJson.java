@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import com.fasterxml.jackson.core.Base64Variants;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import org.bson.BSON;
+import org.bson.BSONObject;
+import org.bson.types.BSONTimestamp;
+import org.bson.types.Binary;
+import org.bson.types.Code;
+import org.bson.types.CodeWScope;
+import org.bson.types.MaxKey;
+import org.bson.types.MinKey;
+import org.bson.types.ObjectId;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.SimpleTimeZone;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Converts extended JSON documents (eg. "{$oid: '...'}") into their BSON types,
+ * the same way the driver's {@link com.mongodb.util.JSONCallback} does.
+ */
+class ExtendedJson {
+
+    private static final String[] FIELDS = {"$oid", "$date", "$regex", "$ts", "$timestamp", "$code",
+            "$ref", "$minKey", "$maxKey", "$uuid", "$binary", "$numberLong"};
+
+    private static final String MS_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final String SEC_DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
+    static boolean isExtended(BSONObject dbo) {
+        for (String field : FIELDS) {
+            if (dbo.containsField(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Object convert(BSONObject b) {
+        if (b.containsField("$oid")) {
+            Object oid = b.get("$oid");
+            return oid instanceof ObjectId ? oid : new ObjectId((String) oid);
+        } else if (b.containsField("$date")) {
+            return toDate(b.get("$date"));
+        } else if (b.containsField("$regex")) {
+            return Pattern.compile((String) b.get("$regex"), BSON.regexFlags((String) b.get("$options")));
+        } else if (b.containsField("$ts")) {
+            return new BSONTimestamp(((Number) b.get("$ts")).intValue(), ((Number) b.get("$inc")).intValue());
+        } else if (b.containsField("$timestamp")) {
+            BSONObject ts = (BSONObject) b.get("$timestamp");
+            return new BSONTimestamp(((Number) ts.get("t")).intValue(), ((Number) ts.get("i")).intValue());
+        } else if (b.containsField("$code")) {
+            if (b.containsField("$scope")) {
+                return new CodeWScope((String) b.get("$code"), (DBObject) b.get("$scope"));
+            }
+            return new Code((String) b.get("$code"));
+        } else if (b.containsField("$ref")) {
+            return new DBRef((String) b.get("$ref"), b.get("$id"));
+        } else if (b.containsField("$minKey")) {
+            return new MinKey();
+        } else if (b.containsField("$maxKey")) {
+            return new MaxKey();
+        } else if (b.containsField("$uuid")) {
+            return UUID.fromString((String) b.get("$uuid"));
+        } else if (b.containsField("$binary")) {
+            byte[] bytes = Base64Variants.MIME_NO_LINEFEEDS.decode((String) b.get("$binary"));
+            return new Binary(((Number) b.get("$type")).byteValue(), bytes);
+        } else if (b.containsField("$numberLong")) {
+            Object value = b.get("$numberLong");
+            return value instanceof Number ? ((Number) value).longValue() : Long.valueOf((String) value);
+        }
+        return b;
+    }
+
+    private static Date toDate(Object value) {
+        if (value instanceof Date) {
+            return (Date) value;
+        }
+        if (value instanceof Number) {
+            return new Date(((Number) value).longValue());
+        }
+        Date date = parseDate(value.toString(), MS_DATE_FORMAT);
+        return date != null ? date : parseDate(value.toString(), SEC_DATE_FORMAT);
+    }
+
+    private static Date parseDate(String value, String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern);
+        format.setCalendar(new GregorianCalendar(new SimpleTimeZone(0, "GMT")));
+        return format.parse(value, new ParsePosition(0));
+    }
+
+    private ExtendedJson() {
+    }
+}
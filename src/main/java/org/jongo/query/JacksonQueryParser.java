@@ -0,0 +1,309 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+import java.io.IOException;
+
+/**
+ * Default {@link QueryParser}, built on Jackson's streaming parser.
+ * <p/>
+ * Besides JSON, it accepts the Mongo shell syntax: single quoted strings, unquoted keys (eg. "{coordinate.lat: 1}"),
+ * ObjectId('...'), ISODate('...'), NumberLong(...) and regular expressions (eg. "/^jo/i").
+ * Shell constructs are rewritten into extended JSON before parsing.
+ */
+public class JacksonQueryParser implements QueryParser {
+
+    // Shared between parsers so field names are canonicalized into a single symbol table
+    private final JsonFactory factory;
+
+    public JacksonQueryParser() {
+        factory = new JsonFactory();
+        factory.enable(JsonParser.Feature.ALLOW_SINGLE_QUOTES);
+        factory.enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS);
+        factory.enable(JsonParser.Feature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER);
+        factory.enable(JsonParser.Feature.ALLOW_UNQUOTED_CONTROL_CHARS);
+    }
+
+    public Object parse(String query) {
+        try {
+            JsonParser parser = factory.createParser(new ShellSyntax(query).toJson());
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    throw new JsonParseException("Empty query", parser.getCurrentLocation());
+                }
+                // Like the driver's parser, content following the query is ignored
+                return readValue(parser, token);
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Unable to parse query " + query, e);
+        }
+    }
+
+    private Object readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                return readObject(parser);
+            case START_ARRAY:
+                return readArray(parser);
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_NUMBER_INT:
+                return readInteger(parser);
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NULL:
+                return null;
+            default:
+                throw new JsonParseException("Unexpected token " + token, parser.getCurrentLocation());
+        }
+    }
+
+    private Object readInteger(JsonParser parser) throws IOException {
+        switch (parser.getNumberType()) {
+            case INT:
+                return parser.getIntValue();
+            case LONG:
+                return parser.getLongValue();
+            default:
+                return parser.getDoubleValue();
+        }
+    }
+
+    private BasicDBObject readObject(JsonParser parser) throws IOException {
+        BasicDBObject dbo = new BasicDBObject();
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            dbo.put(name, readValue(parser, parser.nextToken()));
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new JsonParseException("Unexpected end of object", parser.getCurrentLocation());
+        }
+        return dbo;
+    }
+
+    private BasicDBList readArray(JsonParser parser) throws IOException {
+        BasicDBList list = new BasicDBList();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new JsonParseException("Unexpected end of array", parser.getCurrentLocation());
+            }
+            list.add(readValue(parser, token));
+        }
+        return list;
+    }
+
+    /**
+     * Rewrites Mongo shell constructs into JSON with a single pass over the query.
+     */
+    private static class ShellSyntax {
+
+        private final String query;
+        private final StringBuilder json;
+        // Enclosing '{', '[' and '(' of shell functions
+        private final StringBuilder containers = new StringBuilder();
+        private boolean expectingKey = false;
+        private int pos = 0;
+
+        private ShellSyntax(String query) {
+            this.query = query;
+            this.json = new StringBuilder(query.length() + 16);
+        }
+
+        private String toJson() {
+            int length = query.length();
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    json.append(c);
+                    pos++;
+                } else if (c == '"' || c == '\'') {
+                    copyString(c);
+                } else if (expectingKey && c != '}') {
+                    quoteKey();
+                } else if (c == '/') {
+                    rewriteRegex();
+                } else if (Character.isLetter(c)) {
+                    rewriteIdentifier();
+                } else {
+                    copyStructuralChar(c);
+                }
+            }
+            return json.toString();
+        }
+
+        private void copyStructuralChar(char c) {
+            switch (c) {
+                case '{':
+                    open(c);
+                    expectingKey = true;
+                    break;
+                case '[':
+                    open(c);
+                    break;
+                case '}':
+                case ']':
+                    close();
+                    break;
+                case ')':
+                    if (close() == '(') {
+                        c = '}';
+                    }
+                    break;
+                case ',':
+                    expectingKey = containers.length() > 0 && containers.charAt(containers.length() - 1) == '{';
+                    break;
+                case ':':
+                    expectingKey = false;
+                    break;
+                default:
+                    break;
+            }
+            json.append(c);
+            pos++;
+        }
+
+        private void open(char c) {
+            containers.append(c);
+            expectingKey = false;
+        }
+
+        private char close() {
+            expectingKey = false;
+            int last = containers.length() - 1;
+            if (last < 0) {
+                return 0;
+            }
+            char c = containers.charAt(last);
+            containers.setLength(last);
+            return c;
+        }
+
+        private void copyString(char quote) {
+            int start = pos;
+            pos++;
+            int length = query.length();
+            while (pos < length) {
+                char c = query.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == quote) {
+                    break;
+                }
+            }
+            json.append(query, start, Math.min(pos, length));
+            expectingKey = false;
+        }
+
+        private void quoteKey() {
+            json.append('"');
+            int length = query.length();
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (c == ':' || Character.isWhitespace(c)) {
+                    break;
+                }
+                appendEscaped(c);
+                pos++;
+            }
+            json.append('"');
+            expectingKey = false;
+        }
+
+        private void rewriteRegex() {
+            StringBuilder pattern = new StringBuilder();
+            int length = query.length();
+            pos++;
+            while (pos < length && query.charAt(pos) != '/') {
+                char c = query.charAt(pos++);
+                if (c == '\\' && pos < length && query.charAt(pos) == '/') {
+                    c = query.charAt(pos++);
+                } else if (c == '\\' && pos < length) {
+                    pattern.append(c);
+                    c = query.charAt(pos++);
+                }
+                pattern.append(c);
+            }
+            pos++;
+            int flagsStart = pos;
+            while (pos < length && Character.isLetter(query.charAt(pos))) {
+                pos++;
+            }
+            json.append("{\"$regex\":\"");
+            for (int i = 0; i < pattern.length(); i++) {
+                appendEscaped(pattern.charAt(i));
+            }
+            json.append("\",\"$options\":\"").append(query, flagsStart, Math.min(pos, length)).append("\"}");
+        }
+
+        private void rewriteIdentifier() {
+            int start = pos;
+            int length = query.length();
+            while (pos < length && Character.isLetterOrDigit(query.charAt(pos))) {
+                pos++;
+            }
+            String identifier = query.substring(start, pos);
+            int next = pos;
+            while (next < length && Character.isWhitespace(query.charAt(next))) {
+                next++;
+            }
+            String operator = next < length && query.charAt(next) == '(' ? getOperator(identifier) : null;
+            if (operator == null) {
+                json.append(identifier);
+                return;
+            }
+            json.append("{\"").append(operator).append("\":");
+            containers.append('(');
+            pos = next + 1;
+        }
+
+        private String getOperator(String function) {
+            if ("ObjectId".equals(function)) {
+                return "$oid";
+            }
+            if ("ISODate".equals(function)) {
+                return "$date";
+            }
+            if ("NumberLong".equals(function)) {
+                return "$numberLong";
+            }
+            return null;
+        }
+
+        private void appendEscaped(char c) {
+            if (c == '"' || c == '\\') {
+                json.append('\\');
+            }
+            json.append(c);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binding plan of a query with named parameters (eg. "{name: :name, age: {$gt: :age}}").
+ * <p/>
+ * Parameter names are mapped once per template to the slots they fill, so binding a {@link Map}
+ * or a bean only looks up each distinct name once. Accessors of bean properties are resolved
+ * on the first bind of each bean class.
+ */
+class NamedParameters {
+
+    private final String query;
+    private final String[] names;
+    // Index in names of the parameter filling each slot
+    private final int[] slots;
+    private final ConcurrentMap<Class<?>, PropertyReader[]> readers = new ConcurrentHashMap<Class<?>, PropertyReader[]>();
+
+    private NamedParameters(String query, String[] names, int[] slots) {
+        this.query = query;
+        this.names = names;
+        this.slots = slots;
+    }
+
+    static NamedParameters plan(String query, QueryTokens tokens) {
+        List<String> names = new ArrayList<String>();
+        int[] slots = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            String name = tokens.getName(i);
+            int index = names.indexOf(name);
+            if (index == -1) {
+                index = names.size();
+                names.add(name);
+            }
+            slots[i] = index;
+        }
+        return new NamedParameters(query, names.toArray(new String[names.size()]), slots);
+    }
+
+    /**
+     * @return the value of each slot, read from the given map or bean
+     */
+    Object[] resolve(Object[] parameters) {
+        if (parameters == null || parameters.length != 1 || parameters[0] == null) {
+            throw new IllegalArgumentException("Named parameters must be passed as a single map or bean to query: " + query);
+        }
+        Object[] values = new Object[names.length];
+        Object holder = parameters[0];
+        if (holder instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) holder;
+            for (int i = 0; i < names.length; i++) {
+                Object value = map.get(names[i]);
+                if (value == null && !map.containsKey(names[i])) {
+                    throw new IllegalArgumentException("Missing parameter '" + names[i] + "' for query: " + query);
+                }
+                values[i] = value;
+            }
+        } else {
+            PropertyReader[] propertyReaders = getReaders(holder.getClass());
+            for (int i = 0; i < names.length; i++) {
+                values[i] = propertyReaders[i].read(holder);
+            }
+        }
+        if (values.length == slots.length) {
+            return values;
+        }
+        Object[] slotValues = new Object[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            slotValues[i] = values[slots[i]];
+        }
+        return slotValues;
+    }
+
+    private PropertyReader[] getReaders(Class<?> type) {
+        PropertyReader[] propertyReaders = readers.get(type);
+        if (propertyReaders == null) {
+            propertyReaders = new PropertyReader[names.length];
+            for (int i = 0; i < names.length; i++) {
+                propertyReaders[i] = PropertyReader.of(type, names[i]);
+            }
+            readers.putIfAbsent(type, propertyReaders);
+        }
+        return propertyReaders;
+    }
+
+    private static class PropertyReader {
+
+        private final Method getter;
+        private final Field field;
+
+        private PropertyReader(Method getter, Field field) {
+            this.getter = getter;
+            this.field = field;
+        }
+
+        static PropertyReader of(Class<?> type, String name) {
+            try {
+                BeanInfo info = Introspector.getBeanInfo(type);
+                for (PropertyDescriptor descriptor : info.getPropertyDescriptors()) {
+                    if (descriptor.getName().equals(name) && descriptor.getReadMethod() != null) {
+                        Method getter = descriptor.getReadMethod();
+                        getter.setAccessible(true);
+                        return new PropertyReader(getter, null);
+                    }
+                }
+            } catch (IntrospectionException e) {
+                throw new IllegalArgumentException("Unable to introspect " + type.getName(), e);
+            }
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                try {
+                    Field field = c.getDeclaredField(name);
+                    field.setAccessible(true);
+                    return new PropertyReader(null, field);
+                } catch (NoSuchFieldException e) {
+                    // look into the superclass
+                }
+            }
+            throw new IllegalArgumentException("Missing parameter '" + name + "' in " + type.getName());
+        }
+
+        Object read(Object bean) {
+            try {
+                return getter != null ? getter.invoke(bean) : field.get(bean);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("Unable to read parameter from " + bean.getClass().getName(), e);
+            } catch (InvocationTargetException e) {
+                throw new IllegalArgumentException("Unable to read parameter from " + bean.getClass().getName(), e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+public class PreparedQueries {
+
+    private static final String DEFAULT_TOKEN = "#";
+
+    /**
+     * Prepares the query with the given factory. Factories which cannot prepare queries
+     * are called on each bind and are expected to use the default token.
+     */
+    public static PreparedQuery prepare(QueryFactory factory, String query) {
+        if (factory instanceof PreparableQueryFactory) {
+            return ((PreparableQueryFactory) factory).prepare(query);
+        }
+        return new DeferredQuery(factory, query);
+    }
+
+    private static class DeferredQuery implements PreparedQuery {
+
+        private final QueryFactory factory;
+        private final String query;
+        private final int parameterCount;
+
+        private DeferredQuery(QueryFactory factory, String query) {
+            this.factory = factory;
+            this.query = query;
+            this.parameterCount = QueryTemplate.countParameters(QueryTokens.scan(query, DEFAULT_TOKEN));
+        }
+
+        public Query bind(Object... parameters) {
+            return factory.createQuery(query, parameters);
+        }
+
+        public int getParameterCount() {
+            return parameterCount;
+        }
+    }
+
+    private PreparedQueries() {
+    }
+}
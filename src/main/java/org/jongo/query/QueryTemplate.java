@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * A query string parsed once and reused for every call with the same template.
+ * <p/>
+ * The skeleton is the parsed query where each value token has been replaced by a {@link Parameter}
+ * and extended JSON documents holding parameters by an {@link Extended} document.
+ * Templates with tokens used as property names (eg. "{scores.#: 1}") cannot be parsed ahead
+ * of binding and are flagged as dynamic.
+ * <p/>
+ * Templates with named parameters are bound from a single map or bean, see {@link NamedParameters}.
+ */
+class QueryTemplate {
+
+    private final String query;
+    private final QueryTokens tokens;
+    private final Object skeleton;
+    private final boolean dynamic;
+    private final NamedParameters namedParameters;
+
+    private QueryTemplate(String query, QueryTokens tokens, Object skeleton, boolean dynamic) {
+        this.query = query;
+        this.tokens = tokens;
+        this.skeleton = skeleton;
+        this.dynamic = dynamic;
+        this.namedParameters = tokens.hasNames() ? NamedParameters.plan(query, tokens) : null;
+    }
+
+    static QueryTemplate compiled(String query, QueryTokens tokens, Object skeleton) {
+        return new QueryTemplate(query, tokens, skeleton, false);
+    }
+
+    static QueryTemplate dynamic(String query, QueryTokens tokens) {
+        return new QueryTemplate(query, tokens, null, true);
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    QueryTokens getTokens() {
+        return tokens;
+    }
+
+    Object getSkeleton() {
+        return skeleton;
+    }
+
+    /**
+     * @return the number of parameters expected by the template: one map or bean when parameters are named
+     */
+    int getParameterCount() {
+        return countParameters(tokens);
+    }
+
+    static int countParameters(QueryTokens tokens) {
+        return tokens.hasNames() ? 1 : tokens.size();
+    }
+
+    /**
+     * @return the values of each token, resolved from the named parameters holder when the template has any
+     */
+    Object[] resolve(Object[] parameters) {
+        return namedParameters != null ? namedParameters.resolve(parameters) : parameters;
+    }
+
+    boolean isDynamic() {
+        return dynamic;
+    }
+
+    /**
+     * Copies the skeleton, replacing each parameter with its marshalled value.
+     */
+    Object bind(Object[] values) {
+        return bind(skeleton, values);
+    }
+
+    static Object bind(Object node, Object[] values) {
+        if (node instanceof Parameter) {
+            return values[((Parameter) node).getIndex()];
+        }
+        if (node instanceof BasicDBList) {
+            BasicDBList list = (BasicDBList) node;
+            BasicDBList copy = new BasicDBList();
+            for (Object element : list) {
+                copy.add(bind(element, values));
+            }
+            return copy;
+        }
+        if (node instanceof BasicDBObject) {
+            BasicDBObject dbo = (BasicDBObject) node;
+            BasicDBObject copy = new BasicDBObject(dbo.size());
+            for (Map.Entry<String, Object> entry : dbo.entrySet()) {
+                copy.put(entry.getKey(), bind(entry.getValue(), values));
+            }
+            return node instanceof Extended ? ExtendedJson.convert(copy) : copy;
+        }
+        if (node instanceof Date) {
+            return new Date(((Date) node).getTime());
+        }
+        return node;
+    }
+
+    /**
+     * An extended JSON document (eg. "{$oid: #}") converted into its BSON type once parameters are bound.
+     */
+    static class Extended extends BasicDBObject {
+
+        Extended(Map<String, Object> fields) {
+            super(fields);
+        }
+    }
+
+    static class Parameter {
+
+        private final int index;
+
+        Parameter(int index) {
+            this.index = index;
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + index;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded and thread-safe cache of compiled query templates, keyed by query string and token.
+ * <p/>
+ * When the cache is full, templates are evicted in insertion order.
+ * Hit, miss and eviction counters can be used to size the cache.
+ */
+public class QueryTemplateCache {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+    private final int maximumSize;
+    private final ConcurrentMap<Key, QueryTemplate> templates;
+    private final Queue<Key> insertionOrder;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QueryTemplateCache() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public QueryTemplateCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.templates = new ConcurrentHashMap<Key, QueryTemplate>();
+        this.insertionOrder = new ConcurrentLinkedQueue<Key>();
+    }
+
+    QueryTemplate get(String query, String token) {
+        QueryTemplate template = templates.get(new Key(query, token));
+        if (template == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return template;
+    }
+
+    void put(String query, String token, QueryTemplate template) {
+        if (maximumSize == 0) {
+            return;
+        }
+        Key key = new Key(query, token);
+        if (templates.putIfAbsent(key, template) == null) {
+            insertionOrder.add(key);
+            evictIfNeeded();
+        }
+    }
+
+    private void evictIfNeeded() {
+        while (templates.size() > maximumSize) {
+            Key eldest = insertionOrder.poll();
+            if (eldest == null) {
+                return;
+            }
+            if (templates.remove(eldest) != null) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public void clear() {
+        templates.clear();
+        insertionOrder.clear();
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "QueryTemplateCache{size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + getHitCount()
+                + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "}";
+    }
+
+    private static class Key {
+
+        private final String query;
+        private final String token;
+        private final int hash;
+
+        private Key(String query, String token) {
+            this.query = query;
+            this.token = token;
+            this.hash = 31 * query.hashCode() + token.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return hash == other.hash && query.equals(other.query) && token.equals(other.token);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
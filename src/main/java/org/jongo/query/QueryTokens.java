@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import java.util.Arrays;
+
+/**
+ * Positions of the parameter tokens of a query, found by a single forward pass over the query.
+ * <p/>
+ * Each token is classified as a value ("{id: #}", "{a: [#, #]}") or as a key
+ * ("{#: 1}", "{scores.#: 1}"). Tokens found in a quoted string are classified as keys:
+ * like property names, they are substituted as is into the query text.
+ * <p/>
+ * Named parameters ("{name: :name}", "{a: [:min, :max]}") are recognized in value position only.
+ */
+class QueryTokens {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final int[] positions;
+    private final int[] ends;
+    private final boolean[] keys;
+    private final String[] names;
+    private final int size;
+    private final boolean hasKeys;
+    private final boolean hasNames;
+
+    private QueryTokens(Scanner scanner) {
+        this.positions = scanner.positions;
+        this.ends = scanner.ends;
+        this.keys = scanner.keys;
+        this.names = scanner.names;
+        this.size = scanner.size;
+        this.hasKeys = scanner.hasKeys;
+        this.hasNames = scanner.hasNames;
+    }
+
+    static QueryTokens scan(String query, String token) {
+        Scanner scanner = new Scanner(query, token);
+        scanner.scan();
+        if (scanner.hasNames && scanner.hasPositional) {
+            throw new IllegalArgumentException("Cannot mix positional and named parameters in query: " + query);
+        }
+        return new QueryTokens(scanner);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getPosition(int index) {
+        return positions[index];
+    }
+
+    /**
+     * @return the position following the token or the parameter name
+     */
+    int getEnd(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @return the name of a named parameter, null for a positional token
+     */
+    String getName(int index) {
+        return names[index];
+    }
+
+    boolean isKey(int index) {
+        return keys[index];
+    }
+
+    boolean hasKeys() {
+        return hasKeys;
+    }
+
+    boolean hasNames() {
+        return hasNames;
+    }
+
+    private static class Scanner {
+
+        private final String query;
+        private final String token;
+        private final char first;
+
+        // Whether each enclosing '{' or '[' is an object or an array: objects are 'true'
+        private boolean[] containers = new boolean[INITIAL_CAPACITY];
+        private int depth = 0;
+        private boolean expectingKey = false;
+        // Set when a '.' has been read since the last structural character, eg. "{scores.#: 1}"
+        private boolean inPath = false;
+        // Set where a value may start: at the beginning of the query, after ':', '[' and ',' in an array
+        private boolean expectingValue = true;
+
+        private int[] positions = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        private boolean[] keys = new boolean[INITIAL_CAPACITY];
+        private String[] names = new String[INITIAL_CAPACITY];
+        private int size = 0;
+        private boolean hasKeys = false;
+        private boolean hasNames = false;
+        private boolean hasPositional = false;
+
+        private Scanner(String query, String token) {
+            this.query = query;
+            this.token = token;
+            this.first = token.charAt(0);
+        }
+
+        private void scan() {
+            int length = query.length();
+            int pos = 0;
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (c == first && query.startsWith(token, pos)) {
+                    add(pos, pos + token.length(), expectingKey || inPath, null);
+                    pos += token.length();
+                    expectingValue = false;
+                    continue;
+                }
+                if (c == ':' && expectingValue && pos + 1 < length && Character.isJavaIdentifierStart(query.charAt(pos + 1))) {
+                    pos = addName(pos);
+                    continue;
+                }
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                    continue;
+                }
+                expectingValue = false;
+                switch (c) {
+                    case '\'':
+                    case '"':
+                        pos = skipString(pos, c);
+                        continue;
+                    case '{':
+                        push(true);
+                        break;
+                    case '[':
+                        push(false);
+                        break;
+                    case '}':
+                    case ']':
+                        pop();
+                        break;
+                    case ':':
+                        expectingKey = false;
+                        inPath = false;
+                        expectingValue = true;
+                        break;
+                    case ',':
+                        expectingKey = depth > 0 && containers[depth - 1];
+                        inPath = false;
+                        expectingValue = !expectingKey;
+                        break;
+                    case '.':
+                        inPath = true;
+                        break;
+                    default:
+                        break;
+                }
+                pos++;
+            }
+        }
+
+        /**
+         * Records the tokens found into a quoted string and returns the position following the closing quote.
+         */
+        private int skipString(int start, char quote) {
+            int length = query.length();
+            int pos = start + 1;
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else if (c == quote) {
+                    return pos + 1;
+                } else if (c == first && query.startsWith(token, pos)) {
+                    add(pos, pos + token.length(), true, null);
+                    pos += token.length();
+                } else {
+                    pos++;
+                }
+            }
+            return length;
+        }
+
+        private void push(boolean object) {
+            if (depth == containers.length) {
+                containers = Arrays.copyOf(containers, depth * 2);
+            }
+            containers[depth++] = object;
+            expectingKey = object;
+            expectingValue = !object;
+            inPath = false;
+        }
+
+        private void pop() {
+            if (depth > 0) {
+                depth--;
+            }
+            expectingKey = false;
+            inPath = false;
+        }
+
+        /**
+         * Records the named parameter starting at the given ':' and returns the position following its name.
+         */
+        private int addName(int start) {
+            int length = query.length();
+            int end = start + 2;
+            while (end < length && Character.isJavaIdentifierPart(query.charAt(end))) {
+                end++;
+            }
+            add(start, end, false, query.substring(start + 1, end));
+            expectingValue = false;
+            return end;
+        }
+
+        private void add(int position, int end, boolean key, String name) {
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+                names = Arrays.copyOf(names, size * 2);
+            }
+            positions[size] = position;
+            ends[size] = end;
+            keys[size] = key;
+            names[size] = name;
+            size++;
+            hasKeys |= key;
+            hasNames |= name != null;
+            hasPositional |= name == null;
+        }
+    }
+}
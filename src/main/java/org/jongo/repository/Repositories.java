@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.repository;
+
+import org.jongo.MongoCollection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Implements repository interfaces whose methods are annotated with {@link Find}, {@link FindOne}, {@link Count},
+ * {@link Update} or {@link Remove}:
+ * <pre>
+ * public interface Friends {
+ *     &#64;Find("{name: #, age: {$gt: #}}")
+ *     List&lt;Friend&gt; findOlderThan(String name, int age);
+ * }
+ *
+ * Friends friends = Repositories.create(Friends.class, jongo.getCollection("friends"));
+ * </pre>
+ * Every query is parsed and checked against its method when the repository is created, so an invalid
+ * template or a wrong number of arguments fails at startup rather than on first call.
+ * Repositories are thread-safe.
+ */
+public class Repositories {
+
+    public static <T> T create(Class<T> type, MongoCollection collection) {
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException("Repository must be an interface: " + type.getName());
+        }
+        Map<Method, RepositoryMethod> methods = new HashMap<Method, RepositoryMethod>();
+        for (Method method : type.getMethods()) {
+            methods.put(method, RepositoryMethod.compile(method, collection));
+        }
+        Object repository = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, new RepositoryHandler(type, collection, methods));
+        return type.cast(repository);
+    }
+
+    private static class RepositoryHandler implements InvocationHandler {
+
+        private static final Object[] NO_ARGUMENTS = {};
+
+        private final Class<?> type;
+        private final MongoCollection collection;
+        private final Map<Method, RepositoryMethod> methods;
+
+        private RepositoryHandler(Class<?> type, MongoCollection collection, Map<Method, RepositoryMethod> methods) {
+            this.type = type;
+            this.collection = collection;
+            this.methods = methods;
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            RepositoryMethod repositoryMethod = methods.get(method);
+            if (repositoryMethod != null) {
+                return repositoryMethod.invoke(args == null ? NO_ARGUMENTS : args);
+            }
+            if (method.getName().equals("equals") && args != null && args.length == 1) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("toString")) {
+                return type.getSimpleName() + "{collection=" + collection.getName() + "}";
+            }
+            throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    private Repositories() {
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.repository;
+
+import com.mongodb.WriteResult;
+import org.jongo.MongoCollection;
+import org.jongo.MongoCursor;
+import org.jongo.PreparedCount;
+import org.jongo.PreparedFind;
+import org.jongo.PreparedRemove;
+import org.jongo.PreparedUpdate;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A repository method bound to its prepared statement.
+ */
+abstract class RepositoryMethod {
+
+    abstract Object invoke(Object[] args);
+
+    static RepositoryMethod compile(Method method, MongoCollection collection) {
+        Annotation annotation = getQueryAnnotation(method);
+        try {
+            RepositoryMethod repositoryMethod;
+            int parameterCount;
+            if (annotation instanceof Find) {
+                FindMethod find = new FindMethod(method, collection, (Find) annotation);
+                parameterCount = find.find.getParameterCount();
+                repositoryMethod = find;
+            } else if (annotation instanceof FindOne) {
+                FindOneMethod findOne = new FindOneMethod(method, collection, (FindOne) annotation);
+                parameterCount = findOne.find.getParameterCount();
+                repositoryMethod = findOne;
+            } else if (annotation instanceof Count) {
+                CountMethod count = new CountMethod(method, collection, (Count) annotation);
+                parameterCount = count.count.getParameterCount();
+                repositoryMethod = count;
+            } else if (annotation instanceof Update) {
+                UpdateMethod update = new UpdateMethod(method, collection, (Update) annotation);
+                parameterCount = update.update.getParameterCount();
+                repositoryMethod = update;
+            } else {
+                RemoveMethod remove = new RemoveMethod(method, collection, (Remove) annotation);
+                parameterCount = remove.remove.getParameterCount();
+                repositoryMethod = remove;
+            }
+            if (parameterCount != method.getParameterTypes().length) {
+                throw new IllegalArgumentException("Query expects " + parameterCount + " parameter(s) but method has "
+                        + method.getParameterTypes().length);
+            }
+            return repositoryMethod;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unable to implement " + describe(method) + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static Annotation getQueryAnnotation(Method method) {
+        Annotation found = null;
+        for (Annotation annotation : method.getAnnotations()) {
+            if (annotation instanceof Find || annotation instanceof FindOne || annotation instanceof Count
+                    || annotation instanceof Update || annotation instanceof Remove) {
+                if (found != null) {
+                    throw new IllegalArgumentException(describe(method) + " has more than one query annotation");
+                }
+                found = annotation;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException(describe(method) + " has no query annotation");
+        }
+        return found;
+    }
+
+    private static String describe(Method method) {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    private static Class<?> getElementType(Method method) {
+        Type type = method.getGenericReturnType();
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            if (arguments.length == 1) {
+                Type argument = arguments[0];
+                if (argument instanceof ParameterizedType) {
+                    argument = ((ParameterizedType) argument).getRawType();
+                }
+                if (argument instanceof Class) {
+                    return (Class<?>) argument;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unable to resolve the element type of " + type);
+    }
+
+    private static boolean isEmpty(String value) {
+        return value.length() == 0;
+    }
+
+    private static Object toWriteResult(Class<?> returnType, WriteResult writeResult) {
+        if (returnType == int.class || returnType == Integer.class) {
+            return writeResult.getN();
+        }
+        return returnType == void.class ? null : writeResult;
+    }
+
+    private static void checkWriteResultType(Class<?> returnType) {
+        if (returnType != void.class && returnType != int.class && returnType != Integer.class
+                && !returnType.isAssignableFrom(WriteResult.class)) {
+            throw new IllegalArgumentException("Unsupported return type " + returnType.getName());
+        }
+    }
+
+    private static void close(MongoCursor<?> cursor) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to close cursor", e);
+        }
+    }
+
+    private static class FindMethod extends RepositoryMethod {
+
+        private final PreparedFind find;
+        private final Class<?> elementType;
+        private final boolean list;
+
+        private FindMethod(Method method, MongoCollection collection, Find annotation) {
+            Class<?> returnType = method.getReturnType();
+            if (returnType.isAssignableFrom(MongoCursor.class)) {
+                list = false;
+            } else if (returnType.isAssignableFrom(ArrayList.class)) {
+                list = true;
+            } else {
+                throw new IllegalArgumentException("Unsupported return type " + returnType.getName());
+            }
+            this.elementType = getElementType(method);
+            this.find = collection.prepareFind(annotation.value());
+            if (!isEmpty(annotation.projection())) {
+                find.projection(annotation.projection());
+            }
+            if (!isEmpty(annotation.sort())) {
+                find.sort(annotation.sort());
+            }
+            if (!isEmpty(annotation.hint())) {
+                find.hint(annotation.hint());
+            }
+            if (annotation.skip() > 0) {
+                find.skip(annotation.skip());
+            }
+            if (annotation.limit() > 0) {
+                find.limit(annotation.limit());
+            }
+        }
+
+        @Override
+        Object invoke(Object[] args) {
+            MongoCursor<?> cursor = find.execute(args).as(elementType);
+            if (!list) {
+                return cursor;
+            }
+            try {
+                List<Object> results = new ArrayList<Object>();
+                while (cursor.hasNext()) {
+                    results.add(cursor.next());
+                }
+                return results;
+            } finally {
+                close(cursor);
+            }
+        }
+    }
+
+    private static class FindOneMethod extends RepositoryMethod {
+
+        private final PreparedFind find;
+        private final Class<?> resultType;
+
+        private FindOneMethod(Method method, MongoCollection collection, FindOne annotation) {
+            this.resultType = method.getReturnType();
+            if (resultType.isPrimitive()) {
+                throw new IllegalArgumentException("Unsupported return type " + resultType.getName());
+            }
+            this.find = collection.prepareFind(annotation.value()).limit(1);
+            if (!isEmpty(annotation.projection())) {
+                find.projection(annotation.projection());
+            }
+            if (!isEmpty(annotation.sort())) {
+                find.sort(annotation.sort());
+            }
+        }
+
+        @Override
+        Object invoke(Object[] args) {
+            MongoCursor<?> cursor = find.execute(args).as(resultType);
+            try {
+                return cursor.hasNext() ? cursor.next() : null;
+            } finally {
+                close(cursor);
+            }
+        }
+    }
+
+    private static class CountMethod extends RepositoryMethod {
+
+        private final PreparedCount count;
+        private final boolean asInt;
+
+        private CountMethod(Method method, MongoCollection collection, Count annotation) {
+            Class<?> returnType = method.getReturnType();
+            if (returnType == int.class || returnType == Integer.class) {
+                asInt = true;
+            } else if (returnType == long.class || returnType == Long.class) {
+                asInt = false;
+            } else {
+                throw new IllegalArgumentException("Unsupported return type " + returnType.getName());
+            }
+            this.count = collection.prepareCount(annotation.value());
+        }
+
+        @Override
+        Object invoke(Object[] args) {
+            long result = count.execute(args);
+            if (asInt) {
+                return (int) result;
+            }
+            return result;
+        }
+    }
+
+    private static class UpdateMethod extends RepositoryMethod {
+
+        private final PreparedUpdate update;
+        private final Class<?> returnType;
+
+        private UpdateMethod(Method method, MongoCollection collection, Update annotation) {
+            this.returnType = method.getReturnType();
+            checkWriteResultType(returnType);
+            this.update = collection.prepareUpdate(annotation.value(), annotation.with());
+            if (annotation.upsert()) {
+                update.upsert();
+            }
+            if (annotation.multi()) {
+                update.multi();
+            }
+        }
+
+        @Override
+        Object invoke(Object[] args) {
+            return toWriteResult(returnType, update.execute(args));
+        }
+    }
+
+    private static class RemoveMethod extends RepositoryMethod {
+
+        private final PreparedRemove remove;
+        private final Class<?> returnType;
+
+        private RemoveMethod(Method method, MongoCollection collection, Remove annotation) {
+            this.returnType = method.getReturnType();
+            checkWriteResultType(returnType);
+            this.remove = collection.prepareRemove(annotation.value());
+        }
+
+        @Override
+        Object invoke(Object[] args) {
+            return toWriteResult(returnType, remove.execute(args));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import com.mongodb.DBObject;
+import org.jongo.query.Query;
+
+/**
+ * A query created by an {@link InstrumentedQueryFactory}, carrying the stats of its shape
+ * so its execution can be recorded.
+ */
+public class InstrumentedQuery implements Query {
+
+    private final Query query;
+    private final QueryShapeStats stats;
+
+    InstrumentedQuery(Query query, QueryShapeStats stats) {
+        this.query = query;
+        this.stats = stats;
+    }
+
+    public DBObject toDBObject() {
+        return query.toDBObject();
+    }
+
+    public QueryShapeStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import org.jongo.query.PreparableQueryFactory;
+import org.jongo.query.PreparedQueries;
+import org.jongo.query.PreparedQuery;
+import org.jongo.query.Query;
+import org.jongo.query.QueryFactory;
+
+/**
+ * Records the time spent creating queries into the {@link QueryShapeStats} of their shape.
+ * <p/>
+ * Queries are returned as {@link InstrumentedQuery}s: {@link org.jongo.MongoCollection} operations
+ * also record their execution time, the number of documents returned and their size.
+ */
+public class InstrumentedQueryFactory implements PreparableQueryFactory {
+
+    private final QueryFactory queryFactory;
+    private final QueryShapeRegistry registry;
+
+    public InstrumentedQueryFactory(QueryFactory queryFactory, QueryShapeRegistry registry) {
+        this.queryFactory = queryFactory;
+        this.registry = registry;
+    }
+
+    public Query createQuery(String query, Object... parameters) {
+        QueryShapeStats stats = registry.getStats(query);
+        long start = System.nanoTime();
+        Query created = queryFactory.createQuery(query, parameters);
+        stats.recordParse(System.nanoTime() - start);
+        return new InstrumentedQuery(created, stats);
+    }
+
+    public PreparedQuery prepare(String query) {
+        final QueryShapeStats stats = registry.getStats(query);
+        final PreparedQuery preparedQuery = PreparedQueries.prepare(queryFactory, query);
+        return new PreparedQuery() {
+            public Query bind(Object... parameters) {
+                long start = System.nanoTime();
+                Query bound = preparedQuery.bind(parameters);
+                stats.recordParse(System.nanoTime() - start);
+                return new InstrumentedQuery(bound, stats);
+            }
+
+            public int getParameterCount() {
+                return preparedQuery.getParameterCount();
+            }
+        };
+    }
+
+    public QueryShapeRegistry getRegistry() {
+        return registry;
+    }
+}
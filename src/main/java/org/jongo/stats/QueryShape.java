@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+/**
+ * Normalizes a query template into its shape: literal values are replaced by '?' and whitespaces are removed,
+ * while keys, operators and parameter tokens are kept.
+ * <p/>
+ * For instance "{name: 'John', age: {$gt: #}, tags: {$in: ['a', 'b']}}" has the shape
+ * "{name:?,age:{$gt:#},tags:{$in:[?]}}": consecutive literals in an array are collapsed.
+ */
+public class QueryShape {
+
+    private static final char LITERAL = '?';
+
+    public static String normalize(String query, String token) {
+        if (query == null) {
+            return "null";
+        }
+        return new Normalizer(query, token).normalize();
+    }
+
+    private static class Normalizer {
+
+        private final String query;
+        private final String token;
+        private final StringBuilder shape;
+        private final StringBuilder containers = new StringBuilder();
+        private boolean expectingKey = false;
+        private int pos = 0;
+
+        private Normalizer(String query, String token) {
+            this.query = query;
+            this.token = token;
+            this.shape = new StringBuilder(query.length());
+        }
+
+        private String normalize() {
+            int length = query.length();
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (query.startsWith(token, pos)) {
+                    shape.append(token);
+                    pos += token.length();
+                } else if (c == '"' || c == '\'') {
+                    int start = pos;
+                    skipString(c);
+                    if (expectingKey) {
+                        shape.append(query, start, pos);
+                    } else {
+                        appendLiteral();
+                    }
+                } else if (expectingKey && c != '}') {
+                    copyKey();
+                } else if (c == '/') {
+                    skipRegex();
+                    appendLiteral();
+                } else if (isStructural(c)) {
+                    copyStructuralChar(c);
+                } else {
+                    skipLiteral();
+                }
+            }
+            return shape.toString();
+        }
+
+        private boolean isStructural(char c) {
+            return c == '{' || c == '}' || c == '[' || c == ']' || c == ':' || c == ',' || c == '(' || c == ')';
+        }
+
+        private void copyStructuralChar(char c) {
+            switch (c) {
+                case '{':
+                case '[':
+                case '(':
+                    containers.append(c);
+                    expectingKey = c == '{';
+                    break;
+                case '}':
+                case ']':
+                case ')':
+                    if (containers.length() > 0) {
+                        containers.setLength(containers.length() - 1);
+                    }
+                    expectingKey = false;
+                    break;
+                case ',':
+                    expectingKey = containers.length() > 0 && containers.charAt(containers.length() - 1) == '{';
+                    break;
+                default:
+                    expectingKey = false;
+                    break;
+            }
+            shape.append(c);
+            pos++;
+        }
+
+        private void copyKey() {
+            int length = query.length();
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (c == ':' || Character.isWhitespace(c)) {
+                    break;
+                }
+                shape.append(c);
+                pos++;
+            }
+            expectingKey = false;
+        }
+
+        private void skipString(char quote) {
+            int length = query.length();
+            pos++;
+            while (pos < length) {
+                char c = query.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == quote) {
+                    return;
+                }
+            }
+        }
+
+        private void skipRegex() {
+            int length = query.length();
+            pos++;
+            while (pos < length) {
+                char c = query.charAt(pos++);
+                if (c == '\\') {
+                    pos++;
+                } else if (c == '/') {
+                    break;
+                }
+            }
+            while (pos < length && Character.isLetter(query.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        /**
+         * Skips a number, a boolean or null. Shell functions (eg. "ObjectId('...')") keep their name.
+         */
+        private void skipLiteral() {
+            int start = pos;
+            int length = query.length();
+            while (pos < length) {
+                char c = query.charAt(pos);
+                if (Character.isWhitespace(c) || isStructural(c) || query.startsWith(token, pos)) {
+                    break;
+                }
+                pos++;
+            }
+            int next = pos;
+            while (next < length && Character.isWhitespace(query.charAt(next))) {
+                next++;
+            }
+            if (next < length && query.charAt(next) == '(') {
+                shape.append(query, start, pos);
+                pos = next;
+            } else {
+                appendLiteral();
+            }
+        }
+
+        private void appendLiteral() {
+            int last = shape.length() - 1;
+            boolean inArray = containers.length() > 0 && containers.charAt(containers.length() - 1) == '[';
+            if (inArray && last > 0 && shape.charAt(last) == ',' && shape.charAt(last - 1) == LITERAL) {
+                shape.setLength(last);
+                return;
+            }
+            shape.append(LITERAL);
+        }
+    }
+
+    private QueryShape() {
+    }
+}
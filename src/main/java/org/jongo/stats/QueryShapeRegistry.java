@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects {@link QueryShapeStats} of the queries created through an {@link InstrumentedQueryFactory}.
+ * <p/>
+ * Shapes are computed once per distinct query string, up to a maximum number of query strings.
+ * Beyond it, queries are normalized on each call. The number of shapes is bounded by the same maximum:
+ * queries of new shapes beyond it are not recorded, but counted, see {@link #getDroppedQueryCount()}.
+ */
+public class QueryShapeRegistry implements QueryShapeRegistryMBean {
+
+    public static final int DEFAULT_MAXIMUM_QUERIES = 10000;
+
+    private static final Comparator<QueryShapeStats> BY_EXECUTION_TIME = new Comparator<QueryShapeStats>() {
+        public int compare(QueryShapeStats s1, QueryShapeStats s2) {
+            long t1 = s1.getExecutionTime(TimeUnit.NANOSECONDS);
+            long t2 = s2.getExecutionTime(TimeUnit.NANOSECONDS);
+            return t1 < t2 ? 1 : t1 > t2 ? -1 : 0;
+        }
+    };
+
+    private final String token;
+    private final int maximumQueries;
+    private final ConcurrentMap<String, QueryShapeStats> shapes = new ConcurrentHashMap<String, QueryShapeStats>();
+    private final ConcurrentMap<String, QueryShapeStats> queries = new ConcurrentHashMap<String, QueryShapeStats>();
+    private final AtomicLong droppedQueries = new AtomicLong();
+
+    public QueryShapeRegistry() {
+        this("#", DEFAULT_MAXIMUM_QUERIES);
+    }
+
+    public QueryShapeRegistry(String token, int maximumQueries) {
+        this.token = token;
+        this.maximumQueries = maximumQueries;
+    }
+
+    public QueryShapeStats getStats(String query) {
+        String key = query == null ? "null" : query;
+        QueryShapeStats stats = queries.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        stats = getShapeStats(QueryShape.normalize(query, token));
+        if (queries.size() < maximumQueries) {
+            queries.putIfAbsent(key, stats);
+        }
+        return stats;
+    }
+
+    private QueryShapeStats getShapeStats(String shape) {
+        QueryShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            QueryShapeStats created = new QueryShapeStats(shape);
+            if (shapes.size() >= maximumQueries) {
+                // Recorded by the caller but not kept
+                droppedQueries.incrementAndGet();
+                return created;
+            }
+            stats = shapes.putIfAbsent(shape, created);
+            if (stats == null) {
+                stats = created;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * @return stats of each shape, by decreasing total execution time
+     */
+    public List<QueryShapeStats> getShapes() {
+        List<QueryShapeStats> stats = new ArrayList<QueryShapeStats>(shapes.values());
+        Collections.sort(stats, BY_EXECUTION_TIME);
+        return stats;
+    }
+
+    public int getShapeCount() {
+        return shapes.size();
+    }
+
+    public long getDroppedQueryCount() {
+        return droppedQueries.get();
+    }
+
+    public String[] getShapeSummaries() {
+        return getTopShapeSummaries(Integer.MAX_VALUE);
+    }
+
+    public String[] getTopShapeSummaries(int count) {
+        List<QueryShapeStats> stats = getShapes();
+        int size = Math.min(count, stats.size());
+        long dropped = droppedQueries.get();
+        String[] summaries = new String[dropped > 0 ? size + 1 : size];
+        for (int i = 0; i < size; i++) {
+            summaries[i] = stats.get(i).toString();
+        }
+        if (dropped > 0) {
+            summaries[size] = dropped + " queries not recorded: more than " + maximumQueries + " shapes";
+        }
+        return summaries;
+    }
+
+    public void reset() {
+        queries.clear();
+        shapes.clear();
+        droppedQueries.set(0);
+    }
+
+    /**
+     * Registers this registry into the platform MBean server, eg. with "org.jongo:type=QueryShapes".
+     */
+    public ObjectName registerMBean(String objectName) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(objectName);
+            server.registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalArgumentException("Unable to register query shapes MBean " + objectName, e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+/**
+ * JMX view of a {@link QueryShapeRegistry}.
+ */
+public interface QueryShapeRegistryMBean {
+
+    int getShapeCount();
+
+    /**
+     * @return how many queries were not recorded because their shape came after the maximum number of shapes
+     */
+    long getDroppedQueryCount();
+
+    /**
+     * @return a summary of each shape, by decreasing total execution time, followed by the number of
+     * dropped queries if any
+     */
+    String[] getShapeSummaries();
+
+    String[] getTopShapeSummaries(int count);
+
+    void reset();
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free counters of the queries sharing the same {@link QueryShape}.
+ * <p/>
+ * Execution times are recorded into a histogram of power of two buckets: percentiles are therefore
+ * approximated by the upper bound of their bucket.
+ */
+public class QueryShapeStats {
+
+    private static final int BUCKETS = 64;
+
+    private final String shape;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong executionNanos = new AtomicLong();
+    private final AtomicLongArray executionHistogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    QueryShapeStats(String shape) {
+        this.shape = shape;
+    }
+
+    public void recordParse(long nanos) {
+        calls.incrementAndGet();
+        parseNanos.addAndGet(nanos);
+    }
+
+    public void recordExecution(long nanos) {
+        executions.incrementAndGet();
+        executionNanos.addAndGet(nanos);
+        executionHistogram.incrementAndGet(bucketOf(nanos));
+    }
+
+    public void recordDocument(long size) {
+        documents.incrementAndGet();
+        bytes.addAndGet(size);
+    }
+
+    private static int bucketOf(long nanos) {
+        return nanos <= 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(nanos);
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    public long getParseTime(TimeUnit unit) {
+        return unit.convert(parseNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getExecutionCount() {
+        return executions.get();
+    }
+
+    public long getExecutionTime(TimeUnit unit) {
+        return unit.convert(executionNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return an upper bound of the execution time below which the given percentage of executions fall
+     */
+    public long getExecutionTimePercentile(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = executionHistogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        int bucket = 0;
+        for (; bucket < BUCKETS - 1; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank && seen > 0) {
+                break;
+            }
+        }
+        long upperBound = bucket == 0 ? 0 : bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+        return unit.convert(upperBound, TimeUnit.NANOSECONDS);
+    }
+
+    public long getDocumentCount() {
+        return documents.get();
+    }
+
+    public long getDecodedBytes() {
+        return bytes.get();
+    }
+
+    @Override
+    public String toString() {
+        return shape + " calls=" + getCallCount()
+                + " parseMicros=" + getParseTime(TimeUnit.MICROSECONDS)
+                + " executions=" + getExecutionCount()
+                + " executionMicros=" + getExecutionTime(TimeUnit.MICROSECONDS)
+                + " p50Micros=" + getExecutionTimePercentile(50, TimeUnit.MICROSECONDS)
+                + " p99Micros=" + getExecutionTimePercentile(99, TimeUnit.MICROSECONDS)
+                + " documents=" + getDocumentCount()
+                + " bytes=" + getDecodedBytes();
+    }
+}
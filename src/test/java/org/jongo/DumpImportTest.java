@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo;
+
+import com.mongodb.DBCollection;
+import com.mongodb.DBEncoder;
+import com.mongodb.DBObject;
+import com.mongodb.LazyDBObject;
+import com.mongodb.WriteConcern;
+import org.bson.io.BasicOutputBuffer;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class DumpImportTest {
+
+    private DBCollection collection;
+    private BasicOutputBuffer inserted;
+    private List<Integer> batches;
+    private List<Integer> batchLengths;
+
+    @Before
+    public void setUp() throws Exception {
+        collection = mock(DBCollection.class);
+        inserted = new BasicOutputBuffer();
+        batches = new ArrayList<Integer>();
+        batchLengths = new ArrayList<Integer>();
+        when(collection.insert(anyListOf(DBObject.class), any(WriteConcern.class), any(DBEncoder.class))).thenAnswer(new Answer<Object>() {
+            @SuppressWarnings("unchecked")
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                // Encoded when inserted since the batch buffer is reused afterwards
+                List<DBObject> dbos = (List<DBObject>) invocation.getArguments()[0];
+                DBEncoder encoder = (DBEncoder) invocation.getArguments()[2];
+                int length = 0;
+                for (DBObject dbo : dbos) {
+                    assertThat(dbo).isInstanceOf(LazyDBObject.class);
+                    length += encoder.writeObject(inserted, dbo);
+                }
+                batches.add(dbos.size());
+                batchLengths.add(length);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void shouldInsertDocumentsOfDumpAsIs() throws Exception {
+
+        Path dump = getDump();
+
+        long count = new DumpImport(collection, null, WriteConcern.SAFE).importDump(dump);
+
+        assertThat(count).isEqualTo(1000);
+        assertThat(batches).containsExactly(1000);
+        assertThat(inserted.toByteArray()).isEqualTo(Files.readAllBytes(dump));
+    }
+
+    @Test
+    public void shouldBoundBatchesByCount() throws Exception {
+
+        Path dump = getDump();
+
+        long count = new DumpImport(collection, null, WriteConcern.SAFE, 16 * 1024 * 1024, 300).importDump(dump);
+
+        assertThat(count).isEqualTo(1000);
+        assertThat(batches).containsExactly(300, 300, 300, 100);
+        assertThat(inserted.toByteArray()).isEqualTo(Files.readAllBytes(dump));
+    }
+
+    @Test
+    public void shouldBoundBatchesBySize() throws Exception {
+
+        Path dump = getDump();
+
+        new DumpImport(collection, null, WriteConcern.SAFE, 4096, 1000).importDump(dump);
+
+        assertThat(batches.size()).isGreaterThan(1);
+        for (Integer length : batchLengths) {
+            assertThat(length).isLessThanOrEqualTo(4096);
+        }
+        assertThat(inserted.toByteArray()).isEqualTo(Files.readAllBytes(dump));
+    }
+
+    @Test
+    public void shouldInsertDocumentsLargerThanBatchOneByOne() throws Exception {
+
+        Path dump = getDump();
+
+        new DumpImport(collection, null, WriteConcern.SAFE, 10, 1000).importDump(dump);
+
+        assertThat(batches).hasSize(1000).doesNotContain(0);
+        assertThat(inserted.toByteArray()).isEqualTo(Files.readAllBytes(dump));
+    }
+
+    @Test
+    public void shouldInsertHistoryDocumentsByBatch() throws Exception {
+
+        DBCollection collection = mock(DBCollection.class);
+        DBCollection historyCollection = mock(DBCollection.class);
+
+        new DumpImport(collection, historyCollection, WriteConcern.SAFE, 16 * 1024 * 1024, 300).importDump(getDump());
+
+        verify(historyCollection, times(4)).insert(anyListOf(DBObject.class));
+        verify(historyCollection, never()).insert(any(DBObject.class));
+        verify(collection, times(4)).insert(anyListOf(DBObject.class), any(WriteConcern.class), any(DBEncoder.class));
+    }
+
+    private Path getDump() throws Exception {
+        return Paths.get(getClass().getClassLoader().getResource("1000friends.bson").toURI());
+    }
+}
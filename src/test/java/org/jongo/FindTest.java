@@ -63,6 +63,24 @@ public class FindTest extends JongoTestCase {
         assertThat(friends.hasNext()).isFalse();
     }
 
+    @Test
+    public void canFindIntoReusableInstance() throws Exception {
+        /* given */
+        collection.save(new Friend(new ObjectId(), "John"));
+        collection.save(new Friend(new ObjectId(), "Peter"));
+        Friend reusable = new Friend();
+
+        /* when */
+        Iterator<Friend> friends = collection.find().sort("{name:1}").as(Friend.class, reusable);
+
+        /* then */
+        assertThat(friends.next()).isSameAs(reusable);
+        assertThat(reusable.getName()).isEqualTo("John");
+        assertThat(friends.next()).isSameAs(reusable);
+        assertThat(reusable.getName()).isEqualTo("Peter");
+        assertThat(friends.hasNext()).isFalse();
+    }
+
     @Test
     public void canFindAndCount() throws Exception {
 
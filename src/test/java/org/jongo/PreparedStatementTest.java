@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import org.jongo.model.Friend;
+import org.jongo.util.JongoTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreparedStatementTest extends JongoTestCase {
+
+    private MongoCollection collection;
+
+    @Before
+    public void setUp() throws Exception {
+        collection = createEmptyCollection("friends");
+        collection.save(new Friend("John", "22 Wall Street Avenue"));
+        collection.save(new Friend("Peter", "22 Wall Street Avenue"));
+        collection.save(new Friend("Robert", "21 Jump Street"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dropCollection("friends");
+    }
+
+    @Test
+    public void canExecutePreparedFindWithDifferentParameters() throws Exception {
+
+        PreparedFind find = collection.prepareFind("{address:#}").sort("{name:-1}").projection("{name:1}");
+
+        MongoCursor<Friend> friends = find.execute("22 Wall Street Avenue").as(Friend.class);
+        Friend robert = find.execute("21 Jump Street").as(Friend.class).next();
+
+        assertThat(friends.next().getName()).isEqualTo("Peter");
+        assertThat(friends.next().getName()).isEqualTo("John");
+        assertThat(friends.hasNext()).isFalse();
+        assertThat(robert.getName()).isEqualTo("Robert");
+        assertThat(robert.getAddress()).isNull();
+    }
+
+    @Test
+    public void canExecutePreparedCount() throws Exception {
+
+        PreparedCount count = collection.prepareCount("{address:#}");
+
+        assertThat(count.execute("22 Wall Street Avenue")).isEqualTo(2);
+        assertThat(count.execute("21 Jump Street")).isEqualTo(1);
+    }
+
+    @Test
+    public void canExecutePreparedUpdate() throws Exception {
+
+        PreparedUpdate update = collection.prepareUpdate("{name:#}", "{$set:{address:#}}");
+
+        update.execute("John", "1 Infinite Loop");
+
+        assertThat(collection.count("{address:#}", "1 Infinite Loop")).isEqualTo(1);
+    }
+
+    @Test
+    public void canExecutePreparedMultiUpdate() throws Exception {
+
+        PreparedUpdate update = collection.prepareUpdate("{address:#}", "{$set:{address:'1 Infinite Loop'}}").multi();
+
+        update.execute("22 Wall Street Avenue");
+
+        assertThat(collection.count("{address:#}", "1 Infinite Loop")).isEqualTo(2);
+    }
+
+    @Test
+    public void canExecutePreparedRemove() throws Exception {
+
+        PreparedRemove remove = collection.prepareRemove("{name:#}");
+
+        remove.execute("John");
+        remove.execute("Peter");
+
+        assertThat(collection.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo;
+
+import com.mongodb.WriteResult;
+import org.jongo.model.Friend;
+import org.jongo.repository.Count;
+import org.jongo.repository.Find;
+import org.jongo.repository.FindOne;
+import org.jongo.repository.Remove;
+import org.jongo.repository.Repositories;
+import org.jongo.repository.Update;
+import org.jongo.util.JongoTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RepositoryTest extends JongoTestCase {
+
+    private MongoCollection collection;
+    private Friends friends;
+
+    @Before
+    public void setUp() throws Exception {
+        collection = createEmptyCollection("friends");
+        collection.save(new Friend("John", "22 Wall Street Avenue"));
+        collection.save(new Friend("Peter", "22 Wall Street Avenue"));
+        collection.save(new Friend("Robert", "21 Jump Street"));
+        friends = Repositories.create(Friends.class, collection);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        dropCollection("friends");
+    }
+
+    @Test
+    public void canFind() throws Exception {
+
+        List<Friend> found = friends.findByAddress("22 Wall Street Avenue");
+
+        assertThat(found).hasSize(2);
+        assertThat(found.get(0).getName()).isEqualTo("Peter");
+        assertThat(found.get(1).getName()).isEqualTo("John");
+    }
+
+    @Test
+    public void canFindIntoCursor() throws Exception {
+
+        MongoCursor<Friend> cursor = friends.findNames();
+
+        assertThat(cursor.next().getName()).isEqualTo("John");
+        assertThat(cursor.next().getAddress()).isNull();
+        cursor.close();
+    }
+
+    @Test
+    public void canFindOne() throws Exception {
+
+        assertThat(friends.findOneByName("Robert").getAddress()).isEqualTo("21 Jump Street");
+        assertThat(friends.findOneByName("Unknown")).isNull();
+    }
+
+    @Test
+    public void canCount() throws Exception {
+
+        assertThat(friends.countByAddress("22 Wall Street Avenue")).isEqualTo(2);
+    }
+
+    @Test
+    public void canUpdate() throws Exception {
+
+        int updated = friends.moveAll("22 Wall Street Avenue", "1 Infinite Loop");
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(friends.countByAddress("1 Infinite Loop")).isEqualTo(2);
+    }
+
+    @Test
+    public void canRemove() throws Exception {
+
+        WriteResult writeResult = friends.removeByName("John");
+
+        assertThat(writeResult.getN()).isEqualTo(1);
+        assertThat(collection.count()).isEqualTo(2);
+    }
+
+    public interface Friends {
+
+        @Find(value = "{address: #}", sort = "{name: -1}")
+        List<Friend> findByAddress(String address);
+
+        @Find(value = "{}", projection = "{name: 1}", sort = "{name: 1}", limit = 2)
+        MongoCursor<Friend> findNames();
+
+        @FindOne("{name: #}")
+        Friend findOneByName(String name);
+
+        @Count("{address: #}")
+        long countByAddress(String address);
+
+        @Update(value = "{address: #}", with = "{$set: {address: #}}", multi = true)
+        int moveAll(String from, String to);
+
+        @Remove("{name: #}")
+        WriteResult removeByName(String name);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bench;
+
+import com.google.caliper.Param;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+import com.mongodb.DBEncoder;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
+import org.jongo.bson.BsonDBEncoder;
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.configuration.Mapping;
+import org.jongo.query.BsonQueryFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds and encodes "{_id: {$in: #}}" queries with large arrays.
+ * Allocations are measured with the --measureMemory option, which requires the ALLOCATION_JAR environment
+ * variable to point to java-allocation-instrumenter.jar.
+ */
+public class ArrayParameterBench extends SimpleBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int size;
+
+    private final BsonQueryFactory factory = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping()));
+    private long[] longs;
+    private List<Long> longList;
+    private ObjectId[] ids;
+    private List<ObjectId> idList;
+
+    @Override
+    protected void setUp() throws Exception {
+        longs = new long[size];
+        longList = new ArrayList<Long>(size);
+        ids = new ObjectId[size];
+        idList = new ArrayList<ObjectId>(size);
+        for (int i = 0; i < size; i++) {
+            longs[i] = i;
+            longList.add((long) i);
+            ids[i] = new ObjectId();
+            idList.add(ids[i]);
+        }
+    }
+
+    public int timeBindLongArray(int reps) {
+        return bindAndEncode(reps, longs);
+    }
+
+    public int timeBindLongList(int reps) {
+        return bindAndEncode(reps, longList);
+    }
+
+    public int timeBindObjectIdArray(int reps) {
+        return bindAndEncode(reps, ids);
+    }
+
+    public int timeBindObjectIdList(int reps) {
+        return bindAndEncode(reps, idList);
+    }
+
+    private int bindAndEncode(int reps, Object parameter) {
+        int size = 0;
+        for (int i = 0; i < reps; i++) {
+            DBEncoder encoder = BsonDBEncoder.FACTORY.create();
+            BasicOutputBuffer buffer = new BasicOutputBuffer();
+            size += encoder.writeObject(buffer, factory.createQuery("{_id: {$in: #}}", parameter).toDBObject());
+        }
+        return size;
+    }
+
+    public static void main(String[] args) {
+        Runner.main(ArrayParameterBench.class, new String[]{"--measureMemory"});
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bench;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+import com.mongodb.BasicDBObject;
+import org.bson.types.ObjectId;
+import org.jongo.bson.Bson;
+import org.jongo.bson.BsonDocument;
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.codec.JongoEntity;
+import org.jongo.marshall.jackson.codec.JongoEntityProcessor;
+import org.jongo.marshall.jackson.configuration.Mapping;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Unmarshalls and marshalls the same @JongoEntity class with its generated codec, and with Jackson.
+ * The class is compiled twice when the benchmark is set up: once with {@link JongoEntityProcessor},
+ * once without it so that the default mapping falls back to Jackson.
+ */
+public class CodecBench extends SimpleBenchmark {
+
+    private static final String CLASS_NAME = "org.jongo.bench.entity.Buddy";
+    private static final String SOURCE = "package org.jongo.bench.entity;\n" +
+            "import org.bson.types.ObjectId;\n" +
+            "import org.jongo.marshall.jackson.codec.JongoEntity;\n" +
+            "@JongoEntity\n" +
+            "public class Buddy {\n" +
+            "    ObjectId _id;\n" +
+            "    String name;\n" +
+            "    String address;\n" +
+            "    int age;\n" +
+            "    long score;\n" +
+            "    boolean active;\n" +
+            "    Coordinate coordinate;\n" +
+            "    @JongoEntity\n" +
+            "    public static class Coordinate {\n" +
+            "        int lat;\n" +
+            "        int lng;\n" +
+            "    }\n" +
+            "}\n";
+
+    private final JacksonEngine engine = new JacksonEngine(Mapping.defaultMapping());
+    private final BsonDocument document = Bson.createDocument(new BasicDBObject("_id", new ObjectId())
+            .append("name", "John")
+            .append("address", "22 rue des murlins")
+            .append("age", 32)
+            .append("score", 1234567890123L)
+            .append("active", true)
+            .append("coordinate", new BasicDBObject("lat", 48).append("lng", 2)));
+    private Class<?> withCodec;
+    private Class<?> withJackson;
+    private Object buddyWithCodec;
+    private Object buddyWithJackson;
+
+    @Override
+    protected void setUp() throws Exception {
+        withCodec = compile(Collections.<Processor>singletonList(new JongoEntityProcessor()));
+        withJackson = compile(Collections.<Processor>emptyList());
+        buddyWithCodec = engine.unmarshall(document, withCodec);
+        buddyWithJackson = engine.unmarshall(document, withJackson);
+    }
+
+    public int timeUnmarshallWithCodec(int reps) {
+        return unmarshall(reps, withCodec);
+    }
+
+    public int timeUnmarshallWithJackson(int reps) {
+        return unmarshall(reps, withJackson);
+    }
+
+    public int timeMarshallWithCodec(int reps) {
+        return marshall(reps, buddyWithCodec);
+    }
+
+    public int timeMarshallWithJackson(int reps) {
+        return marshall(reps, buddyWithJackson);
+    }
+
+    private int unmarshall(int reps, Class<?> clazz) {
+        int hash = 0;
+        for (int i = 0; i < reps; i++) {
+            hash += engine.unmarshall(document, clazz).hashCode();
+        }
+        return hash;
+    }
+
+    private int marshall(int reps, Object buddy) {
+        int size = 0;
+        for (int i = 0; i < reps; i++) {
+            size += engine.marshall(buddy).getSize();
+        }
+        return size;
+    }
+
+    private static Class<?> compile(List<Processor> processors) throws Exception {
+        File output = Files.createTempDirectory("codec-bench").toFile();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+        try {
+            List<File> outputs = Arrays.asList(output);
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, outputs);
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, outputs);
+            fileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, null, null,
+                    Arrays.asList(new Source()));
+            task.setProcessors(processors);
+            if (!task.call()) {
+                throw new IllegalStateException("Unable to compile " + CLASS_NAME);
+            }
+        } finally {
+            fileManager.close();
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[]{output.toURI().toURL()}, CodecBench.class.getClassLoader());
+        return Class.forName(CLASS_NAME, true, loader);
+    }
+
+    private static List<File> getClassPath() throws Exception {
+        List<File> classPath = new ArrayList<File>();
+        for (Class<?> clazz : Arrays.asList(JongoEntity.class, JsonSerializer.class, JsonParser.class, JsonInclude.class, ObjectId.class)) {
+            classPath.add(new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        }
+        return classPath;
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private Source() {
+            super(URI.create("string:///" + CLASS_NAME.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return SOURCE;
+        }
+    }
+
+    public static void main(String[] args) {
+        Runner.main(CodecBench.class, new String[]{});
+    }
+}
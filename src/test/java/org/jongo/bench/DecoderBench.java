@@ -60,7 +60,7 @@ public class DecoderBench extends SimpleBenchmark {
         Runner.main(DecoderBench.class, new String[]{});
     }
 
-    private static final byte[] FRIEND_AS_BYTE = new byte[]{-75, 1, 0, 0, 7, 95, 105, 100, 0, 80, 116, -128, -1, 48, 4,
+    static final byte[] FRIEND_AS_BYTE = new byte[]{-75, 1, 0, 0, 7, 95, 105, 100, 0, 80, 116, -128, -1, 48, 4,
             -104, 62, 31, -27, -19, 85, 2, 110, 97, 109, 101, 0, 6, 0, 0, 0, 74, 111, 104, 110, 48, 0, 2, 97, 100, 100,
             114, 101, 115, 115, 0, 9, 0, 0, 0, 65, 100, 100, 114, 101, 115, 115, 48, 0, 3, 99, 111, 111, 114, 100, 105,
             110, 97, 116, 101, 0, 23, 0, 0, 0, 16, 108, 97, 116, 0, 1, 0, 0, 0, 16, 108, 110, 103, 0, 0, 0, 0, 0, 0, 4,
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bench;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+import com.mongodb.BasicDBObject;
+import org.bson.BasicBSONEncoder;
+import org.jongo.bson.Bson;
+import org.jongo.bson.BsonDocument;
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.configuration.Mapping;
+import org.jongo.model.Friend;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jongo.bench.DecoderBench.FRIEND_AS_BYTE;
+
+public class ParserBench extends SimpleBenchmark {
+
+    private final ObjectReader reader = Mapping.defaultMapping().getReader(Friend.class);
+    private final JacksonEngine engine = new JacksonEngine(Mapping.defaultMapping());
+    private final JacksonEngine partialEngine = new JacksonEngine(new Mapping.Builder().withPartialDecoding().build());
+    private final BsonDocument largeFriend = createLargeFriend();
+
+    public void timeParseFromStream(int reps) throws IOException {
+
+        for (int i = 0; i < reps; i++) {
+            Friend f = reader.readValue(new ByteArrayInputStream(FRIEND_AS_BYTE));
+        }
+    }
+
+    public void timeParseFromByteArray(int reps) throws IOException {
+
+        for (int i = 0; i < reps; i++) {
+            Friend f = reader.readValue(FRIEND_AS_BYTE, 0, FRIEND_AS_BYTE.length);
+        }
+    }
+
+    public void timeUnmarshallLargeDocument(int reps) {
+
+        for (int i = 0; i < reps; i++) {
+            Friend f = engine.unmarshall(largeFriend, Friend.class);
+        }
+    }
+
+    public void timeUnmarshallLargeDocumentPartially(int reps) {
+
+        for (int i = 0; i < reps; i++) {
+            Friend f = partialEngine.unmarshall(largeFriend, Friend.class);
+        }
+    }
+
+    private static BsonDocument createLargeFriend() {
+        List<BasicDBObject> history = new ArrayList<BasicDBObject>();
+        for (int i = 0; i < 100; i++) {
+            history.add(new BasicDBObject("event", "visit" + i).append("count", i));
+        }
+        BasicDBObject friend = new BasicDBObject("name", "John").append("address", "Address0").append("history", history);
+        return Bson.createDocument(new BasicBSONEncoder().encode(friend));
+    }
+
+    public static void main(String[] args) {
+        Runner.main(ParserBench.class, new String[]{});
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bench;
+
+import com.google.caliper.Param;
+import com.google.caliper.Runner;
+import com.google.caliper.SimpleBenchmark;
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.configuration.Mapping;
+import org.jongo.query.BsonQueryFactory;
+import org.jongo.query.QueryTemplateCache;
+
+/**
+ * Creates "{$or: [{a: #}, {a: #}, ...]}" queries with a growing number of tokens.
+ * Time per token should remain constant.
+ */
+public class QueryFactoryBench extends SimpleBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int placeholders;
+
+    private final JacksonEngine engine = new JacksonEngine(Mapping.defaultMapping());
+    private BsonQueryFactory cachingFactory;
+    private BsonQueryFactory factory;
+    private String query;
+    private Object[] parameters;
+
+    @Override
+    protected void setUp() throws Exception {
+        StringBuilder sb = new StringBuilder("{$or: [");
+        parameters = new Object[placeholders];
+        for (int i = 0; i < placeholders; i++) {
+            sb.append(i == 0 ? "" : ", ").append("{a: #}");
+            parameters[i] = i;
+        }
+        query = sb.append("]}").toString();
+        cachingFactory = new BsonQueryFactory(engine);
+        factory = new BsonQueryFactory(engine, "#", new QueryTemplateCache(0));
+    }
+
+    public void timeCreateQuery(int reps) {
+        for (int i = 0; i < reps; i++) {
+            factory.createQuery(query, parameters);
+        }
+    }
+
+    public void timeCreateQueryFromCachedTemplate(int reps) {
+        for (int i = 0; i < reps; i++) {
+            cachingFactory.createQuery(query, parameters);
+        }
+    }
+
+    public static void main(String[] args) {
+        Runner.main(QueryFactoryBench.class, new String[]{});
+    }
+}
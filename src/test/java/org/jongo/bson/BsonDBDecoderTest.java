@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBDecoder;
+import com.mongodb.DBObject;
+import com.mongodb.DBRef;
+import org.bson.BasicBSONEncoder;
+import org.bson.LazyBSONCallback;
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BsonDBDecoderTest {
+
+    @Test
+    public void shouldDetectDBRefFromFirstElementNames() throws Exception {
+
+        byte[] ref = encode(new BasicDBObject("$ref", "friends").append("$id", new ObjectId()));
+        byte[] refOnly = encode(new BasicDBObject("$ref", "friends"));
+        byte[] swapped = encode(new BasicDBObject("$id", new ObjectId()).append("$ref", "friends"));
+        byte[] prefixed = encode(new BasicDBObject("$reference", "friends").append("$id", new ObjectId()));
+
+        assertThat(BsonDBDecoder.isDBRef(ref, 0)).isTrue();
+        assertThat(BsonDBDecoder.isDBRef(refOnly, 0)).isFalse();
+        assertThat(BsonDBDecoder.isDBRef(swapped, 0)).isFalse();
+        assertThat(BsonDBDecoder.isDBRef(prefixed, 0)).isFalse();
+        assertThat(BsonDBDecoder.isDBRef(new byte[]{5, 0, 0, 0, 0}, 0)).isFalse();
+    }
+
+    @Test
+    public void canDecodeDBRef() throws Exception {
+
+        ObjectId id = new ObjectId();
+        LazyBSONCallback callback = (LazyBSONCallback) BsonDBDecoder.FACTORY.create().getDBCallback(null);
+
+        Object ref = callback.createObject(encode(new BasicDBObject("$ref", "friends").append("$id", id)), 0);
+
+        assertThat(ref).isInstanceOf(DBRef.class);
+        assertThat(((DBRef) ref).getRef()).isEqualTo("friends");
+        assertThat(((DBRef) ref).getId()).isEqualTo(id);
+    }
+
+    @Test
+    public void canDecodeDocumentsWithSameDecoder() throws Exception {
+
+        DBDecoder decoder = BsonDBDecoder.FACTORY.create();
+
+        DBObject john = decoder.decode(encode(new BasicDBObject("name", "John")), (DBCollection) null);
+        DBObject peter = decoder.decode(encode(new BasicDBObject("name", "Peter")), (DBCollection) null);
+
+        assertThat(john.get("name")).isEqualTo("John");
+        assertThat(peter.get("name")).isEqualTo("Peter");
+    }
+
+    private static byte[] encode(DBObject dbo) {
+        return new BasicBSONEncoder().encode(dbo);
+    }
+}
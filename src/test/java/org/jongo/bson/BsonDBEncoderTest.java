@@ -18,10 +18,18 @@ package org.jongo.bson;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBEncoder;
+import com.mongodb.DBObject;
+import com.mongodb.DefaultDBEncoder;
 import com.mongodb.LazyDBObject;
+import org.bson.BSON;
+import org.bson.Transformer;
 import org.bson.io.BasicOutputBuffer;
+import org.bson.types.ObjectId;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class BsonDBEncoderTest {
@@ -38,6 +46,21 @@ public class BsonDBEncoderTest {
 
     }
 
+    @Test
+    public void shouldCopyDocumentHeldByDirectBuffer() throws Exception {
+
+        DBEncoder encoder = BsonDBEncoder.FACTORY.create();
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        byte[] bytes = new DefaultDBEncoder().encode(new BasicDBObject("text", new String(new char[20000]).replace('\0', 'a')));
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        int size = encoder.writeObject(buffer, Bson.createDocument(direct).toDBObject());
+
+        assertThat(size).isEqualTo(bytes.length);
+        assertThat(buffer.toByteArray()).isEqualTo(bytes);
+    }
+
     @Test
     public void shouldEncodeDBObject() throws Exception {
         DBEncoder encoder = BsonDBEncoder.FACTORY.create();
@@ -47,4 +70,93 @@ public class BsonDBEncoderTest {
 
         assertThat(buffer.size()).isGreaterThan(0);
     }
+
+    @Test
+    public void shouldPipeNestedLazyDbObject() throws Exception {
+
+        DBEncoder encoder = BsonDBEncoder.FACTORY.create();
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+
+        encoder.writeObject(buffer, new BasicDBObject("nested", new LazyDBObject(new byte[]{5, 0, 0, 0, 0}, null)));
+
+        assertThat(buffer.toByteArray()).isEqualTo(new byte[]{18, 0, 0, 0, 3, 'n', 'e', 's', 't', 'e', 'd', 0, 5, 0, 0, 0, 0, 0});
+    }
+
+    @Test
+    public void shouldPipeLazyDbObjectNestedInList() throws Exception {
+
+        DBEncoder encoder = BsonDBEncoder.FACTORY.create();
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        // {a: undefined}, which the driver would decode as null
+        LazyDBObject undefined = new LazyDBObject(new byte[]{8, 0, 0, 0, 6, 'a', 0, 0}, null);
+
+        encoder.writeObject(buffer, new BasicDBObject("list", Arrays.asList(undefined)));
+
+        assertThat(buffer.toByteArray()).isEqualTo(new byte[]{27, 0, 0, 0, 4, 'l', 'i', 's', 't', 0, 16, 0, 0, 0, 3, '0', 0, 8, 0, 0, 0, 6, 'a', 0, 0, 0, 0});
+    }
+
+    @Test
+    public void shouldEncodeTypedArraysLikeTheDriver() throws Exception {
+
+        long[] longs = new long[12];
+        int[] ints = new int[12];
+        for (int i = 0; i < 12; i++) {
+            longs[i] = Long.MAX_VALUE - i;
+            ints[i] = -i;
+        }
+        DBObject dbo = new BasicDBObject("longs", longs)
+                .append("ints", ints)
+                .append("ids", new ObjectId[]{new ObjectId(), null, new ObjectId()})
+                .append("strings", new String[]{"a", null, "\u00e9t\u00e9"});
+
+        assertThat(encode(dbo)).isEqualTo(encodeWithDriver(dbo));
+    }
+
+    @Test
+    public void shouldEncodeTypedListLikeTheDriver() throws Exception {
+
+        TypedDBList longs = new TypedDBList(Long.class);
+        for (long i = 0; i < 12; i++) {
+            longs.add(i);
+        }
+        longs.add(null);
+        longs.add("not a long");
+        TypedDBList ids = new TypedDBList(ObjectId.class);
+        ids.add(new ObjectId());
+        DBObject dbo = new BasicDBObject("longs", longs).append("ids", ids);
+
+        assertThat(encode(dbo)).isEqualTo(encodeWithDriver(dbo));
+    }
+
+    @Test
+    public void shouldApplyEncodingHooksToArrayElements() throws Exception {
+
+        BSON.addEncodingHook(String.class, new Transformer() {
+            public Object transform(Object o) {
+                return ((String) o).toUpperCase();
+            }
+        });
+        try {
+            TypedDBList strings = new TypedDBList(String.class);
+            strings.add("b");
+            DBObject dbo = new BasicDBObject("strings", new String[]{"a"}).append("list", strings);
+
+            assertThat(encode(dbo)).isEqualTo(encodeWithDriver(dbo));
+            assertThat(new String(encode(dbo), "UTF-8")).contains("A").contains("B");
+        } finally {
+            BSON.removeEncodingHooks(String.class);
+        }
+    }
+
+    private byte[] encode(DBObject dbo) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        BsonDBEncoder.FACTORY.create().writeObject(buffer, dbo);
+        return buffer.toByteArray();
+    }
+
+    private byte[] encodeWithDriver(DBObject dbo) {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        DefaultDBEncoder.FACTORY.create().writeObject(buffer, dbo);
+        return buffer.toByteArray();
+    }
 }
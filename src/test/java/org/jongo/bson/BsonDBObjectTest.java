@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.bson;
+
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.configuration.Mapping;
+import org.jongo.model.Friend;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BsonDBObjectTest {
+
+    private static final int OFFSET = 7;
+
+    private JacksonEngine engine;
+    private byte[] document;
+    private byte[] buffer;
+
+    @Before
+    public void setUp() throws Exception {
+        engine = new JacksonEngine(Mapping.defaultMapping());
+        document = engine.marshall(new Friend("John", "22 Wall Street Avenue")).toByteArray();
+        buffer = new byte[OFFSET + document.length + 3];
+        System.arraycopy(document, 0, buffer, OFFSET, document.length);
+    }
+
+    @Test
+    public void shouldExposeBufferWithoutCopy() throws Exception {
+
+        BsonDBObject dbo = new BsonDBObject(buffer, OFFSET);
+
+        assertThat(dbo.getBuffer()).isSameAs(buffer);
+        assertThat(dbo.getOffset()).isEqualTo(OFFSET);
+        assertThat(dbo.getSize()).isEqualTo(document.length);
+    }
+
+    @Test
+    public void shouldCopyOnlyTheDocumentIntoByteArray() throws Exception {
+
+        BsonDBObject dbo = new BsonDBObject(buffer, OFFSET);
+
+        assertThat(dbo.toByteArray()).isEqualTo(document);
+    }
+
+    @Test
+    public void canUnmarshallInPlace() throws Exception {
+
+        Friend friend = engine.unmarshall(new BsonDBObject(buffer, OFFSET), Friend.class);
+
+        assertThat(friend.getName()).isEqualTo("John");
+        assertThat(friend.getAddress()).isEqualTo("22 Wall Street Avenue");
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.BasicBSONEncoder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class BsonDumpReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void canReadDocumentsOfDump() throws Exception {
+
+        Path dump = Paths.get(getClass().getClassLoader().getResource("1000friends.bson").toURI());
+
+        BsonDumpReader reader = new BsonDumpReader(dump);
+        int count = 0;
+        long size = 0;
+        try {
+            while (reader.hasNext()) {
+                ByteBufferBsonDocument document = reader.next();
+                assertThat(document.toDBObject().get("name")).isNotNull();
+                size += document.getSize();
+                count++;
+            }
+        } finally {
+            reader.close();
+        }
+
+        assertThat(count).isEqualTo(1000);
+        assertThat(size).isEqualTo(Files.size(dump));
+    }
+
+    @Test
+    public void shouldSliceDocumentsWithoutCopy() throws Exception {
+
+        File dump = write(new BasicDBObject("name", "John"), new BasicDBObject("name", "Peter"));
+
+        BsonDumpReader reader = new BsonDumpReader(dump);
+        ByteBufferBsonDocument john = reader.next();
+        ByteBufferBsonDocument peter = reader.next();
+        reader.close();
+
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(john.toByteBuffer().isDirect()).isTrue();
+        assertThat(john.toDBObject().get("name")).isEqualTo("John");
+        assertThat(peter.toDBObject().get("name")).isEqualTo("Peter");
+    }
+
+    @Test
+    public void shouldRejectTruncatedDocument() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        File dump = folder.newFile("truncated.bson");
+        FileOutputStream output = new FileOutputStream(dump);
+        output.write(Arrays.copyOf(bytes, bytes.length - 1));
+        output.close();
+
+        BsonDumpReader reader = new BsonDumpReader(dump);
+        try {
+            reader.next();
+            fail();
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains("Invalid document length");
+        } finally {
+            reader.close();
+        }
+    }
+
+    private File write(DBObject... dbos) throws Exception {
+        File dump = folder.newFile("dump.bson");
+        FileOutputStream output = new FileOutputStream(dump);
+        try {
+            for (DBObject dbo : dbos) {
+                output.write(new BasicBSONEncoder().encode(dbo));
+            }
+        } finally {
+            output.close();
+        }
+        return dump;
+    }
+}
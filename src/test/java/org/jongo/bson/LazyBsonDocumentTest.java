@@ -16,6 +16,11 @@
 
 package org.jongo.bson;
 
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.LazyDBObject;
+import org.bson.BasicBSONEncoder;
+import org.bson.LazyBSONCallback;
 import org.junit.Test;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,4 +33,44 @@ public class LazyBsonDocumentTest {
 
         assertThat(document.getSize()).isEqualTo(6);
     }
+
+    @Test
+    public void shouldSliceLazyObjectWithoutCopy() throws Exception {
+        byte[] document = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        byte[] buffer = new byte[document.length + 10];
+        System.arraycopy(document, 0, buffer, 7, document.length);
+        LazyDBObject lazy = new LazyDBObject(buffer, 7, new LazyBSONCallback());
+
+        BsonDocument slice = Bson.createDocument(lazy);
+
+        assertThat(slice.getBuffer()).isSameAs(buffer);
+        assertThat(slice.getOffset()).isEqualTo(7);
+        assertThat(slice.getSize()).isEqualTo(document.length);
+        assertThat(slice.toByteArray()).isEqualTo(document);
+        assertThat(slice.toDBObject()).isSameAs(lazy);
+    }
+
+    @Test
+    public void shouldEncodeDocumentOnlyWhenBytesAreRead() throws Exception {
+        DBObject dbo = new BasicDBObject("name", "John");
+
+        BsonDocument document = Bson.createDocument(dbo);
+        dbo.put("name", "Peter");
+
+        assertThat(document.toDBObject()).isSameAs(dbo);
+        assertThat(document.toByteArray()).isEqualTo(new BasicBSONEncoder().encode(dbo));
+        assertThat(document.getSize()).isEqualTo(document.toByteArray().length);
+    }
+
+    @Test
+    public void shouldNotLeakPreviouslyEncodedBytes() throws Exception {
+        DBObject large = new BasicDBObject("text", new String(new char[1000]).replace('\0', 'a'));
+        DBObject small = new BasicDBObject("name", "John");
+
+        byte[] largeBytes = Bson.createDocument(large).toByteArray();
+        byte[] smallBytes = Bson.createDocument(small).toByteArray();
+
+        assertThat(largeBytes).isEqualTo(new BasicBSONEncoder().encode(large));
+        assertThat(smallBytes).isEqualTo(new BasicBSONEncoder().encode(small));
+    }
 }
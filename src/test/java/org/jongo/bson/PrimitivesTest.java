@@ -16,8 +16,13 @@
 
 package org.jongo.bson;
 
+import com.mongodb.BasicDBList;
+import org.bson.types.Code;
+import org.bson.types.CodeWScope;
 import org.junit.Test;
 
+import java.util.ArrayList;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class PrimitivesTest {
@@ -27,4 +32,26 @@ public class PrimitivesTest {
         assertThat(Primitives.contains(Number.class)).isTrue();
         assertThat(Primitives.contains(Integer.class)).isTrue();
     }
+
+    @Test
+    public void shouldClassifyMostSpecificKind() throws Exception {
+        assertThat(Primitives.kindOf(CodeWScope.class)).isEqualTo(BsonKind.CODE_W_SCOPE);
+        assertThat(Primitives.kindOf(Code.class)).isEqualTo(BsonKind.CODE);
+        assertThat(Primitives.kindOf(BasicDBList.class)).isEqualTo(BsonKind.DOCUMENT);
+        assertThat(Primitives.kindOf(ArrayList.class)).isEqualTo(BsonKind.COLLECTION);
+    }
+
+    @Test
+    public void shouldClassifyArrays() throws Exception {
+        assertThat(Primitives.kindOf(byte[].class)).isEqualTo(BsonKind.PRIMITIVE_ARRAY);
+        assertThat(Primitives.kindOf(String[].class)).isEqualTo(BsonKind.ARRAY);
+        assertThat(Primitives.contains(String[].class)).isFalse();
+    }
+
+    @Test
+    public void shouldClassifyTypesToMarshall() throws Exception {
+        assertThat(Primitives.kindOf(Thread.State.class)).isEqualTo(BsonKind.ENUM);
+        assertThat(Primitives.kindOf(PrimitivesTest.class)).isEqualTo(BsonKind.OBJECT);
+        assertThat(Primitives.contains(PrimitivesTest.class)).isFalse();
+    }
 }
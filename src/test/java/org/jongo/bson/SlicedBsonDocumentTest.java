@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.bson;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.BasicBSONEncoder;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class SlicedBsonDocumentTest {
+
+    @Test
+    public void shouldSliceDocumentFromBufferPosition() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 10);
+        buffer.position(3);
+        buffer.put(bytes);
+        buffer.position(3);
+
+        ByteBufferBsonDocument document = Bson.createDocument(buffer);
+
+        assertThat(buffer.position()).isEqualTo(3);
+        assertThat(document.getSize()).isEqualTo(bytes.length);
+        assertThat(document.toByteArray()).isEqualTo(bytes);
+        assertThat(document.toByteBuffer().remaining()).isEqualTo(bytes.length);
+        assertThat(document.toByteBuffer().isReadOnly()).isTrue();
+    }
+
+    @Test
+    public void canReadFieldsAsDBObject() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+
+        DBObject dbo = Bson.createDocument(ByteBuffer.wrap(bytes)).toDBObject();
+
+        assertThat(dbo.get("name")).isEqualTo("John");
+        assertThat(dbo.keySet()).containsOnly("name");
+    }
+
+    @Test
+    public void shouldNotBePartialUnlessMarkedAsSuch() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        DBObject dbo = Bson.createDocument(ByteBuffer.wrap(bytes)).toDBObject();
+
+        assertThat(dbo.isPartialObject()).isFalse();
+        dbo.markAsPartialObject();
+        assertThat(dbo.isPartialObject()).isTrue();
+    }
+
+    @Test
+    public void shouldRejectTruncatedDocument() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+
+        try {
+            Bson.createDocument(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage()).contains("Invalid document length");
+        }
+    }
+}
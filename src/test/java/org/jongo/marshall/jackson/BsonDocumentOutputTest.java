@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.marshall.jackson;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BsonDocumentOutputTest {
+
+    private static final byte[] EMPTY_DOCUMENT = {5, 0, 0, 0, 0};
+
+    @Test
+    public void shouldAllocateFromLengthPrefix() throws Exception {
+
+        BsonDocumentOutput output = new BsonDocumentOutput();
+
+        output.write(ByteBuffer.wrap(EMPTY_DOCUMENT, 0, 4));
+        output.write(ByteBuffer.wrap(EMPTY_DOCUMENT, 4, 1));
+
+        assertThat(output.toByteArray()).isEqualTo(EMPTY_DOCUMENT);
+    }
+
+    @Test
+    public void shouldGrowWhenLengthPrefixIsSplit() throws Exception {
+
+        BsonDocumentOutput output = new BsonDocumentOutput();
+
+        output.write(EMPTY_DOCUMENT[0]);
+        output.write(EMPTY_DOCUMENT, 1, 4);
+
+        assertThat(output.toByteArray()).isEqualTo(EMPTY_DOCUMENT);
+    }
+
+    @Test
+    public void shouldKeepBytesWrittenBeyondLengthPrefix() throws Exception {
+
+        BsonDocumentOutput output = new BsonDocumentOutput();
+
+        output.write(EMPTY_DOCUMENT, 0, 5);
+        output.write(EMPTY_DOCUMENT, 0, 5);
+
+        assertThat(output.toByteArray()).hasSize(10);
+    }
+}
@@ -16,16 +16,25 @@
 
 package org.jongo.marshall.jackson;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
+import org.bson.BasicBSONEncoder;
+import org.bson.types.ObjectId;
+import org.jongo.bson.Bson;
 import org.jongo.bson.BsonDocument;
 import org.jongo.marshall.MarshallingException;
+import org.jongo.marshall.UpdatingUnmarshaller;
 import org.jongo.marshall.jackson.configuration.Mapping;
+import org.jongo.model.Animal;
 import org.jongo.model.Fox;
 import org.jongo.model.Friend;
 import org.jongo.util.ErrorObject;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static junit.framework.Assert.fail;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,6 +73,36 @@ public class JacksonEngineTest {
         assertThat(dbo.get("color")).isEqualTo("roux");
     }
 
+    @Test
+    public void shouldMarshallIntoAnArrayOfTheDocumentSize() {
+
+        BsonDocument doc = engine.marshall(new Friend("John", "22 Wall Street Avenue"));
+
+        assertThat(doc.toByteArray().length).isEqualTo(doc.getSize());
+        assertThat(doc.toDBObject().get("address")).isEqualTo("22 Wall Street Avenue");
+    }
+
+    @Test
+    public void canMarshallObjectId() {
+
+        ObjectId id = new ObjectId();
+
+        BsonDocument doc = engine.marshall(Collections.singletonMap("_id", id));
+
+        assertThat(doc.toDBObject().get("_id")).isEqualTo(id);
+        assertThat(Arrays.copyOfRange(doc.toByteArray(), 9, 21)).isEqualTo(id.toByteArray());
+    }
+
+    @Test
+    public void canMarshallValue() {
+
+        assertThat(engine.marshallValue(Thread.State.NEW)).isEqualTo("NEW");
+        assertThat(engine.marshallValue(1L)).isEqualTo(1L);
+
+        DBObject dbo = (DBObject) engine.marshallValue(new Friend("John"));
+        assertThat(dbo.get("name")).isEqualTo("John");
+    }
+
     @Test
     public void canUnmarshallBson() throws IOException {
 
@@ -74,4 +113,88 @@ public class JacksonEngineTest {
         assertThat(friend.getAddress()).isEqualTo("22 rue des murlins");
     }
 
+    @Test
+    public void canUnmarshallFromDirectBuffer() throws IOException {
+
+        byte[] bytes = bsonify("{'name': 'John', 'address': '22 rue des murlins'}").toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        Friend friend = engine.unmarshall(Bson.createDocument(buffer), Friend.class);
+
+        assertThat(friend.getName()).isEqualTo("John");
+        assertThat(friend.getAddress()).isEqualTo("22 rue des murlins");
+        assertThat(buffer.position()).isEqualTo(0);
+    }
+
+    @Test
+    public void canUnmarshallLargeDocumentFromDirectBuffer() throws IOException {
+
+        String address = new String(new char[100 * 1024]).replace('\0', 'a');
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John").append("address", address));
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        Friend friend = engine.unmarshall(Bson.createDocument(buffer), Friend.class);
+
+        assertThat(friend.getName()).isEqualTo("John");
+        assertThat(friend.getAddress()).isEqualTo(address);
+    }
+
+    @Test
+    public void canUnmarshallPartially() throws IOException {
+
+        JacksonEngine partialEngine = new JacksonEngine(new Mapping.Builder().withPartialDecoding().build());
+        BsonDocument document = bsonify("{'tags': [{'a': 1}, 'b', 2.5], 'name': 'John', 'unknown': {'nested': null}, "
+                + "'coordinate': {'lat': 1, 'lng': 2, 'alt': [3]}, 'date': {'$date': 0}, 'id': {'$oid': '47cc67093475061e3d95369d'}}");
+
+        Friend friend = partialEngine.unmarshall(document, Friend.class);
+
+        assertThat(friend.getName()).isEqualTo("John");
+        assertThat(friend.getCoordinate().lat).isEqualTo(1);
+        assertThat(friend.getCoordinate().lng).isEqualTo(2);
+    }
+
+    @Test
+    public void canUnmarshallIntoExistingInstance() throws IOException {
+
+        Friend friend = new Friend("John", "22 Wall Street Avenue");
+
+        Friend result = engine.unmarshallInto(bsonify("{'name': 'Peter'}"), friend);
+
+        assertThat(result).isSameAs(friend);
+        assertThat(friend.getName()).isEqualTo("Peter");
+        assertThat(friend.getAddress()).isEqualTo("22 Wall Street Avenue");
+    }
+
+    @Test
+    public void canUnmarshallIntoSeveralInstancesInTurn() throws IOException {
+
+        Friend john = new Friend("John");
+        Friend peter = new Friend("Peter");
+        UpdatingUnmarshaller.TargetUnmarshaller<Friend> intoJohn = engine.unmarshallerInto(john);
+        UpdatingUnmarshaller.TargetUnmarshaller<Friend> intoPeter = engine.unmarshallerInto(peter);
+
+        assertThat(intoJohn.unmarshall(bsonify("{'address': 'Wall Street'}"))).isSameAs(john);
+        assertThat(intoPeter.unmarshall(bsonify("{'address': 'Broadway'}"))).isSameAs(peter);
+        assertThat(intoJohn.unmarshall(bsonify("{'name': 'Johnny'}"))).isSameAs(john);
+
+        assertThat(john.getName()).isEqualTo("Johnny");
+        assertThat(john.getAddress()).isEqualTo("Wall Street");
+        assertThat(peter.getAddress()).isEqualTo("Broadway");
+    }
+
+    @Test
+    public void canUnmarshallPolymorphicDocumentWithTypeIdAfterOtherProperties() throws IOException {
+
+        ObjectId id = new ObjectId();
+        DBObject dbo = new BasicDBObject("_id", id).append("name", "fantastic").append("_class", "org.jongo.model.Fox").append("color", "roux");
+
+        Animal animal = engine.unmarshall(Bson.createDocument(dbo), Animal.class);
+
+        assertThat(animal).isInstanceOf(Fox.class);
+        assertThat(animal.getId()).isEqualTo(id);
+        assertThat(animal.getName()).isEqualTo("fantastic");
+        assertThat(((Fox) animal).getColor()).isEqualTo("roux");
+    }
 }
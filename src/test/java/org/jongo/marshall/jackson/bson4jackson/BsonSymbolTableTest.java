@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.bson4jackson;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BsonSymbolTableTest {
+
+    @Test
+    public void shouldResolveKnownNameToSameInstance() throws Exception {
+
+        BsonSymbolTable symbols = new BsonSymbolTable();
+        byte[] first = "xxnamexx".getBytes("UTF-8");
+        byte[] second = "name".getBytes("UTF-8");
+
+        String name = symbols.lookup(first, 2, 4, false);
+
+        assertThat(name).isEqualTo("name");
+        assertThat(symbols.lookup(second, 0, 4, false)).isSameAs(name);
+        assertThat(symbols.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDecodeUtf8Names() throws Exception {
+
+        BsonSymbolTable symbols = new BsonSymbolTable();
+        byte[] bytes = "pr\u00e9nom".getBytes("UTF-8");
+
+        assertThat(symbols.lookup(bytes, 0, bytes.length, false)).isEqualTo("pr\u00e9nom");
+        assertThat(symbols.lookup(bytes, 0, bytes.length, false)).isEqualTo("pr\u00e9nom");
+    }
+
+    @Test
+    public void canInternNames() throws Exception {
+
+        BsonSymbolTable symbols = new BsonSymbolTable();
+        byte[] bytes = "address".getBytes("UTF-8");
+
+        assertThat(symbols.lookup(bytes, 0, bytes.length, true)).isSameAs("address");
+    }
+
+    @Test
+    public void shouldStopGrowingWhenFull() throws Exception {
+
+        BsonSymbolTable symbols = new BsonSymbolTable(2);
+
+        for (int i = 0; i < 10; i++) {
+            byte[] bytes = ("key" + i).getBytes("UTF-8");
+            assertThat(symbols.lookup(bytes, 0, bytes.length, false)).isEqualTo("key" + i);
+        }
+
+        assertThat(symbols.size()).isEqualTo(2);
+    }
+}
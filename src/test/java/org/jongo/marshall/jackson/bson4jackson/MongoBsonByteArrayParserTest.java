@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.bson4jackson;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.BasicDBObject;
+import de.undercouch.bson4jackson.types.JavaScript;
+import org.bson.BasicBSONEncoder;
+import org.bson.types.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class MongoBsonByteArrayParserTest {
+
+    private ObjectMapper mapper;
+
+    @Before
+    public void setUp() throws Exception {
+        mapper = new ObjectMapper(MongoBsonFactory.createFactory());
+    }
+
+    @Test
+    public void shouldReadSameTokensAsStreamParser() throws Exception {
+
+        BasicDBObject document = new BasicDBObject("double", 1.5)
+                .append("string", "h\u00e9llo w\u00f6rld")
+                .append("document", new BasicDBObject("int", 1).append("long", 2L))
+                .append("array", Arrays.asList("a", 1, new BasicDBObject("nested", true)))
+                .append("binary", new byte[]{1, 2, 3})
+                .append("uuid", UUID.randomUUID())
+                .append("oid", new ObjectId())
+                .append("boolean", false)
+                .append("date", new Date(123456789L))
+                .append("null", null)
+                .append("regex", Pattern.compile("^j.*", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE))
+                .append("code", new Code("function() {}"))
+                .append("symbol", new Symbol("symbol"))
+                .append("scope", new CodeWScope("function() {}", new BasicDBObject("a", 1)))
+                .append("timestamp", new BSONTimestamp(1000, 7))
+                .append("min", new MinKey())
+                .append("max", new MaxKey());
+        byte[] bytes = new BasicBSONEncoder().encode(document);
+
+        JsonParser expected = new ObjectMapper(new MongoBsonFactory()).getFactory().createParser(new ByteArrayInputStream(bytes));
+        JsonParser parser = mapper.getFactory().createParser(bytes, 0, bytes.length);
+
+        assertThat(expected).isInstanceOf(MongoBsonParser.class);
+        assertThat(parser).isInstanceOf(MongoBsonByteArrayParser.class);
+        JsonToken token;
+        do {
+            token = expected.nextToken();
+            assertThat(parser.nextToken()).isEqualTo(token);
+            assertThat(parser.getCurrentName()).isEqualTo(expected.getCurrentName());
+            if (token == JsonToken.VALUE_STRING) {
+                assertThat(parser.getText()).isEqualTo(expected.getText());
+            } else if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+                assertThat(parser.getNumberType()).isEqualTo(expected.getNumberType());
+                assertThat(parser.getNumberValue()).isEqualTo(expected.getNumberValue());
+            } else if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+                assertThat(describe(parser.getEmbeddedObject())).isEqualTo(describe(expected.getEmbeddedObject()));
+            }
+        } while (token != null);
+    }
+
+    @Test
+    public void shouldReadOneDocumentFromStream() throws Exception {
+
+        ObjectId id = new ObjectId();
+        byte[] first = new BasicBSONEncoder().encode(new BasicDBObject("_id", id).append("ts", new BSONTimestamp(1000, 7)));
+        byte[] second = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        byte[] bytes = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, bytes, first.length, second.length);
+        ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+
+        Map<?, ?> result = mapper.readValue(in, Map.class);
+
+        assertThat(result.get("_id")).isEqualTo(id);
+        assertThat(result.get("ts")).isEqualTo(new BSONTimestamp(1000, 7));
+        assertThat(in.available()).isEqualTo(second.length);
+    }
+
+    @Test
+    public void shouldFailToReadTruncatedDocumentFromStream() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+
+        JsonParser parser = mapper.getFactory().createParser(new ByteArrayInputStream(bytes, 0, bytes.length - 3));
+
+        try {
+            parser.nextToken();
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Invalid document length");
+        }
+    }
+
+    @Test
+    public void shouldReadDocumentAtOffset() throws Exception {
+
+        byte[] document = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        byte[] bytes = new byte[document.length + 10];
+        System.arraycopy(document, 0, bytes, 7, document.length);
+
+        Map<?, ?> result = mapper.reader(Map.class).readValue(bytes, 7, document.length);
+
+        assertThat(result.get("name")).isEqualTo("John");
+    }
+
+    @Test
+    public void shouldReadDocumentAsArray() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("0", "a").append("1", "b"));
+
+        List<String> result = mapper.reader(List.class).readValue(bytes, 0, bytes.length);
+
+        assertThat(result).containsExactly("a", "b");
+    }
+
+    @Test
+    public void shouldShareFieldNamesBetweenParsers() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        JsonParser first = mapper.getFactory().createParser(bytes, 0, bytes.length);
+        JsonParser second = mapper.getFactory().createParser(bytes.clone(), 0, bytes.length);
+
+        first.nextToken();
+        first.nextToken();
+        second.nextToken();
+        second.nextToken();
+
+        assertThat(second.getCurrentName()).isEqualTo("name").isSameAs(first.getCurrentName());
+    }
+
+    @Test
+    public void canSkipRootFieldsNotAccepted() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("array", Arrays.asList(1, 2))
+                .append("name", "John")
+                .append("oid", new ObjectId())
+                .append("document", new BasicDBObject("name", "Peter"))
+                .append("regex", Pattern.compile("^j"))
+                .append("scope", new CodeWScope("function() {}", new BasicDBObject("a", 1)))
+                .append("age", 32));
+
+        MongoBsonFactory factory = (MongoBsonFactory) mapper.getFactory();
+        JsonParser parser = factory.createParser(bytes, 0, bytes.length, new HashSet<String>(Arrays.asList("name", "age")));
+
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.START_OBJECT);
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.FIELD_NAME);
+        assertThat(parser.getCurrentName()).isEqualTo("name");
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_STRING);
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.FIELD_NAME);
+        assertThat(parser.getCurrentName()).isEqualTo("age");
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.VALUE_NUMBER_INT);
+        assertThat(parser.getIntValue()).isEqualTo(32);
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.END_OBJECT);
+        assertThat(parser.nextToken()).isNull();
+    }
+
+    @Test
+    public void canSkipChildren() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("array", Arrays.asList(1, new BasicDBObject("a", 2)))
+                .append("name", "John"));
+        JsonParser parser = mapper.getFactory().createParser(bytes, 0, bytes.length);
+
+        parser.nextToken();
+        parser.nextToken();
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.START_ARRAY);
+        parser.skipChildren();
+
+        assertThat(parser.getCurrentToken()).isEqualTo(JsonToken.END_ARRAY);
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.FIELD_NAME);
+        assertThat(parser.getCurrentName()).isEqualTo("name");
+    }
+
+    @Test
+    public void canExtractStringFieldAheadOfTokens() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("_id", new ObjectId())
+                .append("nested", new BasicDBObject("_class", "Nested"))
+                .append("_class", "Fox")
+                .append("name", "fantastic"));
+        MongoBsonByteArrayParser parser = (MongoBsonByteArrayParser) mapper.getFactory().createParser(bytes, 0, bytes.length);
+
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.START_OBJECT);
+        assertThat(parser.extractString("_class")).isEqualTo("Fox");
+
+        List<String> names = new ArrayList<String>();
+        while (parser.nextToken() != null) {
+            if (parser.getCurrentToken() == JsonToken.FIELD_NAME) {
+                names.add(parser.getCurrentName());
+            }
+        }
+        assertThat(names).containsExactly("_id", "nested", "_class", "name");
+    }
+
+    @Test
+    public void shouldNotExtractMissingOrNonStringField() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("_class", 1).append("name", "John"));
+        MongoBsonByteArrayParser parser = (MongoBsonByteArrayParser) mapper.getFactory().createParser(bytes, 0, bytes.length);
+
+        parser.nextToken();
+
+        assertThat(parser.extractString("_class")).isNull();
+        assertThat(parser.extractString("unknown")).isNull();
+        assertThat(parser.nextToken()).isEqualTo(JsonToken.FIELD_NAME);
+        assertThat(parser.getCurrentName()).isEqualTo("_class");
+    }
+
+    @Test
+    public void shouldRejectTruncatedDocument() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+
+        try {
+            mapper.reader(Map.class).readValue(bytes, 0, bytes.length - 3);
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Invalid document length");
+        }
+    }
+
+    @Test
+    public void shouldNotReadFieldNameBeyondDocument() throws Exception {
+
+        byte[] bytes = new byte[]{10, 0, 0, 0, 0x10, 'a', 'b', 'c', 'd', 'e', 'f', 0, 1, 0, 0, 0, 0};
+
+        try {
+            mapper.reader(Map.class).readValue(bytes, 0, 10);
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Unexpected end of document");
+        }
+    }
+
+    @Test
+    public void shouldRejectNestedDocumentLongerThanItsParent() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("a", new BasicDBObject("b", 1)).append("c", 2));
+        bytes[7] += 10;
+
+        try {
+            mapper.reader(Map.class).readValue(bytes, 0, bytes.length);
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Invalid document length");
+        }
+    }
+
+    @Test
+    public void shouldNotReadStringBeyondDocument() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John"));
+        bytes[10] = 100;
+
+        try {
+            mapper.reader(Map.class).readValue(bytes, 0, bytes.length);
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Unexpected end of document");
+        }
+    }
+
+    @Test
+    public void shouldNotSkipValueBeyondDocument() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", "John").append("_class", "Fox"));
+        bytes[10] = 100;
+        MongoBsonByteArrayParser parser = (MongoBsonByteArrayParser) mapper.getFactory().createParser(bytes, 0, bytes.length);
+
+        parser.nextToken();
+
+        try {
+            parser.extractString("_class");
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Unexpected end of document");
+        }
+    }
+
+    @Test
+    public void shouldReadSameValuesFromBufferAsFromArray() throws Exception {
+
+        BasicDBObject document = new BasicDBObject("binary", new byte[20 * 1024]);
+        for (int i = 0; i < 2000; i++) {
+            document.append("field" + i, new BasicDBObject("value", i).append("name", "n\u00e4me" + i));
+        }
+        document.append("long", new String(new char[20 * 1024]).replace('\0', '\u00e9'));
+        byte[] bytes = new BasicBSONEncoder().encode(document);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 20);
+        buffer.position(10);
+        buffer.put(bytes).put(new byte[10]);
+        buffer.position(10).limit(10 + bytes.length);
+
+        Map<?, ?> expected = mapper.reader(Map.class).readValue(bytes);
+        Map<?, ?> map = mapper.reader(Map.class).readValue(factory().createParser(buffer, null));
+
+        assertThat(map.get("binary")).isEqualTo(expected.remove("binary"));
+        map.remove("binary");
+        assertThat(map).isEqualTo(expected);
+        assertThat(buffer.position()).isEqualTo(10);
+    }
+
+    @Test
+    public void shouldSkipValuesFromBufferWithoutReadingThem() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("skipped", new String(new char[100 * 1024]))
+                .append("name", "John"));
+        Set<String> accepted = Collections.singleton("name");
+
+        Map<?, ?> map = mapper.reader(Map.class).readValue(factory().createParser(ByteBuffer.wrap(bytes), accepted));
+
+        assertThat(map).hasSize(1);
+        assertThat(map.get("name")).isEqualTo("John");
+    }
+
+    @Test
+    public void shouldNotReadStringBeyondDocumentFromBuffer() throws Exception {
+
+        byte[] bytes = new BasicBSONEncoder().encode(new BasicDBObject("name", new String(new char[10 * 1024])));
+        bytes[13] = 0x7f;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+
+        try {
+            mapper.reader(Map.class).readValue(factory().createParser(buffer, null));
+            fail();
+        } catch (JsonParseException e) {
+            assertThat(e.getMessage()).contains("Unexpected end of document");
+        }
+    }
+
+    private MongoBsonFactory factory() {
+        return (MongoBsonFactory) mapper.getFactory();
+    }
+
+    private static Object describe(Object value) {
+        if (value instanceof byte[]) {
+            return Arrays.toString((byte[]) value);
+        }
+        if (value instanceof Pattern) {
+            return value + "/" + ((Pattern) value).flags();
+        }
+        if (value instanceof JavaScript) {
+            return ((JavaScript) value).getCode() + ((JavaScript) value).getScope();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.jongo.marshall.jackson.codec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.util.JSON;
+import org.bson.types.ObjectId;
+import org.jongo.bson.Bson;
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.configuration.MapperModifier;
+import org.jongo.marshall.jackson.configuration.Mapping;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JongoEntityProcessorTest {
+
+    private static final String BUDDY = "package org.acme;\n" +
+            "import java.util.List;\n" +
+            "import com.fasterxml.jackson.annotation.JsonIgnore;\n" +
+            "import org.jongo.marshall.jackson.codec.JongoEntity;\n" +
+            "import org.jongo.marshall.jackson.oid.MongoId;\n" +
+            "import org.jongo.marshall.jackson.oid.MongoObjectId;\n" +
+            "@JongoEntity\n" +
+            "public class Buddy {\n" +
+            "    @MongoId @MongoObjectId String key;\n" +
+            "    String name;\n" +
+            "    int age;\n" +
+            "    Long score;\n" +
+            "    private boolean active;\n" +
+            "    Address home;\n" +
+            "    List<Address> addresses;\n" +
+            "    transient String cache;\n" +
+            "    @JsonIgnore String secret;\n" +
+            "    public boolean isActive() { return active; }\n" +
+            "    public void setActive(boolean active) { this.active = active; }\n" +
+            "    public String getName() { return name; }\n" +
+            "    @JongoEntity\n" +
+            "    public static class Address {\n" +
+            "        public String street;\n" +
+            "    }\n" +
+            "}\n";
+
+    private static final String STRANGER = "package org.acme;\n" +
+            "import com.fasterxml.jackson.annotation.JsonCreator;\n" +
+            "import com.fasterxml.jackson.annotation.JsonProperty;\n" +
+            "import org.jongo.marshall.jackson.codec.JongoEntity;\n" +
+            "@JongoEntity\n" +
+            "public class Stranger {\n" +
+            "    private final String name;\n" +
+            "    @JsonCreator public Stranger(@JsonProperty(\"name\") String name) { this.name = name; }\n" +
+            "    public String getName() { return name; }\n" +
+            "}\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JacksonEngine engine;
+
+    @Before
+    public void setUp() throws Exception {
+        engine = new JacksonEngine(new Mapping.Builder().build());
+    }
+
+    @Test
+    public void shouldGenerateCodecForEntity() throws Exception {
+
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("org.acme.Buddy", BUDDY);
+
+        assertThat(diagnostics).isEmpty();
+        assertThat(new File(folder.getRoot(), "org/acme/Buddy_JongoCodec.java").exists()).isTrue();
+        assertThat(new File(folder.getRoot(), "org/acme/Buddy_Address_JongoCodec.java").exists()).isTrue();
+        Class<?> buddy = load("org.acme.Buddy");
+        assertThat(CodecModule.newCodec(buddy, "Serializer")).isInstanceOf(JsonSerializer.class);
+    }
+
+    @Test
+    public void canUnmarshallAndMarshallWithGeneratedCodec() throws Exception {
+
+        compile("org.acme.Buddy", BUDDY);
+        Class<?> buddy = load("org.acme.Buddy");
+        ObjectId id = new ObjectId();
+        BasicDBList addresses = new BasicDBList();
+        addresses.add(new BasicDBObject("street", "Main Street"));
+        DBObject dbo = new BasicDBObject("_id", id)
+                .append("name", "John")
+                .append("age", 30)
+                .append("unknown", new BasicDBObject("field", 1))
+                .append("active", true)
+                .append("home", new BasicDBObject("street", "Wall Street"))
+                .append("addresses", addresses)
+                .append("cache", "lost");
+
+        Object result = engine.unmarshall(Bson.createDocument(dbo), buddy);
+
+        assertThat(get(result, "key")).isEqualTo(id.toString());
+        assertThat(get(result, "age")).isEqualTo(30);
+        assertThat(get(result, "cache")).isNull();
+        DBObject marshalled = engine.marshall(result).toDBObject();
+        assertThat(JSON.serialize(marshalled)).isEqualTo(JSON.serialize(new BasicDBObject("_id", id)
+                .append("name", "John")
+                .append("age", 30)
+                .append("active", true)
+                .append("home", new BasicDBObject("street", "Wall Street"))
+                .append("addresses", addresses)));
+    }
+
+    @Test
+    public void canUnmarshallIntoExistingInstanceWithGeneratedCodec() throws Exception {
+
+        compile("org.acme.Buddy", BUDDY);
+        Class<?> buddy = load("org.acme.Buddy");
+        Object reusable = engine.unmarshall(Bson.createDocument(new BasicDBObject("name", "John").append("age", 30)), buddy);
+
+        Object result = engine.unmarshallInto(Bson.createDocument(new BasicDBObject("name", "Peter")), reusable);
+
+        assertThat(result).isSameAs(reusable);
+        assertThat(get(result, "name")).isEqualTo("Peter");
+        assertThat(get(result, "age")).isEqualTo(30);
+    }
+
+    @Test
+    public void shouldWriteNullsWhenIncludedByMapping() throws Exception {
+
+        compile("org.acme.Buddy", BUDDY);
+        Class<?> buddy = load("org.acme.Buddy");
+        JacksonEngine engine = new JacksonEngine(new Mapping.Builder().addModifier(new Inclusion(JsonInclude.Include.ALWAYS)).build());
+
+        DBObject marshalled = engine.marshall(buddy.newInstance()).toDBObject();
+
+        assertThat(marshalled.containsField("name")).isTrue();
+        assertThat(marshalled.get("name")).isNull();
+        assertThat(marshalled.containsField("_id")).isFalse();
+    }
+
+    @Test
+    public void shouldFallBackToJacksonWhenInclusionIsNotSupported() throws Exception {
+
+        compile("org.acme.Buddy", BUDDY);
+        Class<?> buddy = load("org.acme.Buddy");
+        JacksonEngine engine = new JacksonEngine(new Mapping.Builder().addModifier(new Inclusion(JsonInclude.Include.NON_EMPTY)).build());
+        Object empty = engine.unmarshall(Bson.createDocument(new BasicDBObject("name", "")), buddy);
+
+        DBObject marshalled = engine.marshall(empty).toDBObject();
+
+        assertThat(marshalled.containsField("name")).isFalse();
+    }
+
+    @Test
+    public void shouldFallBackToJacksonWhenNamingStrategyIsSet() throws Exception {
+
+        compile("org.acme.Buddy", BUDDY);
+        Class<?> buddy = load("org.acme.Buddy");
+        JacksonEngine engine = new JacksonEngine(new Mapping.Builder().addModifier(new MapperModifier() {
+            public void modify(ObjectMapper mapper) {
+                mapper.setPropertyNamingStrategy(new UpperCaseStrategy());
+            }
+        }).build());
+
+        Object result = engine.unmarshall(Bson.createDocument(new BasicDBObject("NAME", "John")), buddy);
+
+        assertThat(get(result, "name")).isEqualTo("John");
+        assertThat(engine.marshall(result).toDBObject().get("NAME")).isEqualTo("John");
+    }
+
+    @Test
+    public void shouldFallBackToJacksonWhenEntityIsNotSupported() throws Exception {
+
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile("org.acme.Stranger", STRANGER);
+
+        assertThat(diagnostics).hasSize(1);
+        assertThat(diagnostics.get(0).getKind()).isEqualTo(Diagnostic.Kind.WARNING);
+        assertThat(diagnostics.get(0).getMessage(null)).contains("@JsonCreator is only supported by Jackson");
+        Class<?> stranger = load("org.acme.Stranger");
+        assertThat(CodecModule.newCodec(stranger, "Deserializer")).isNull();
+        Object result = engine.unmarshall(Bson.createDocument(new BasicDBObject("name", "John")), stranger);
+        assertThat(stranger.getMethod("getName").invoke(result)).isEqualTo("John");
+    }
+
+    @Test
+    public void shouldNameCodecAfterNestedClass() throws Exception {
+
+        assertThat(CodecModule.getCodecName(Nested.class)).isEqualTo("org.jongo.marshall.jackson.codec.JongoEntityProcessorTest_Nested_JongoCodec");
+    }
+
+    private Object get(Object target, String fieldName) throws Exception {
+        Field field = target.getClass().getDeclaredField(fieldName);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> compile(String className, String source) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            List<File> output = Arrays.asList(folder.getRoot());
+            fileManager.setLocation(StandardLocation.CLASS_OUTPUT, output);
+            fileManager.setLocation(StandardLocation.SOURCE_OUTPUT, output);
+            fileManager.setLocation(StandardLocation.CLASS_PATH, getClassPath());
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, null, null,
+                    Arrays.asList(new Source(className, source)));
+            task.setProcessors(Arrays.asList(new JongoEntityProcessor()));
+            assertThat(task.call()).as(diagnostics.getDiagnostics().toString()).isTrue();
+        } finally {
+            fileManager.close();
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    private List<File> getClassPath() throws Exception {
+        List<File> classPath = new ArrayList<File>();
+        for (Class<?> clazz : Arrays.asList(JongoEntity.class, JsonSerializer.class, JsonParser.class, JsonInclude.class, ObjectId.class)) {
+            classPath.add(new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        }
+        return classPath;
+    }
+
+    private Class<?> load(String className) throws Exception {
+        URLClassLoader loader = new URLClassLoader(new URL[]{folder.getRoot().toURI().toURL()}, getClass().getClassLoader());
+        return Class.forName(className, true, loader);
+    }
+
+    private static class Source extends SimpleJavaFileObject {
+
+        private final String source;
+
+        private Source(String className, String source) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static class Inclusion implements MapperModifier {
+
+        private final JsonInclude.Include include;
+
+        private Inclusion(JsonInclude.Include include) {
+            this.include = include;
+        }
+
+        public void modify(ObjectMapper mapper) {
+            mapper.setSerializationInclusion(include);
+        }
+    }
+
+    private static class UpperCaseStrategy extends PropertyNamingStrategy.PropertyNamingStrategyBase {
+
+        @Override
+        public String translate(String propertyName) {
+            return propertyName.toUpperCase();
+        }
+    }
+
+    private static class Nested {
+    }
+}
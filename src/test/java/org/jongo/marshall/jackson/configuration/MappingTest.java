@@ -17,12 +17,15 @@
 package org.jongo.marshall.jackson.configuration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.bson.types.ObjectId;
+import org.jongo.model.Animal;
 import org.jongo.model.Friend;
 import org.junit.Test;
 
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -40,4 +43,65 @@ public class MappingTest {
 
         assertThat(writer.toString()).contains("John");
     }
+
+    @Test
+    public void shouldReuseReadersAndWritersOfDefaultCallbacks() throws Exception {
+
+        Mapping mapping = new Mapping.Builder().build();
+
+        assertThat(mapping.getReader(Friend.class)).isSameAs(mapping.getReader(Friend.class));
+        assertThat(mapping.getWriter(new Friend("John"))).isSameAs(mapping.getWriter(new Friend("Peter")));
+    }
+
+    @Test
+    public void shouldReuseReadersAndWritersOfView() throws Exception {
+
+        Mapping mapping = new Mapping.Builder().withView(Object.class).build();
+
+        assertThat(mapping.getReader(Friend.class)).isSameAs(mapping.getReader(Friend.class));
+        assertThat(mapping.getWriter(new Friend("John"))).isSameAs(mapping.getWriter(new Friend("Peter")));
+    }
+
+    @Test
+    public void shouldComputeAcceptedPropertiesWhenDecodingPartially() throws Exception {
+
+        Mapping mapping = new Mapping.Builder().withPartialDecoding().build();
+
+        assertThat(mapping.getAcceptedProperties(Friend.class)).containsOnly("_id", "name", "address", "coordinate", "gender");
+        assertThat(mapping.getAcceptedProperties(Friend.class)).isSameAs(mapping.getAcceptedProperties(Friend.class));
+    }
+
+    @Test
+    public void shouldAcceptAllPropertiesOfNonBeanOrPolymorphicTypes() throws Exception {
+
+        Mapping mapping = new Mapping.Builder().withPartialDecoding().build();
+
+        assertThat(mapping.getAcceptedProperties(Map.class)).isNull();
+        assertThat(mapping.getAcceptedProperties(Animal.class)).isNull();
+    }
+
+    @Test
+    public void shouldAcceptAllPropertiesByDefault() throws Exception {
+
+        Mapping mapping = new Mapping.Builder().build();
+
+        assertThat(mapping.getAcceptedProperties(Friend.class)).isNull();
+    }
+
+    @Test
+    public void shouldCallCustomCallbackOnEachCall() throws Exception {
+
+        final int[] calls = {0};
+        Mapping mapping = new Mapping.Builder().setReaderCallback(new ReaderCallback() {
+            public ObjectReader getReader(ObjectMapper mapper, Class<?> clazz) {
+                calls[0]++;
+                return mapper.reader(clazz);
+            }
+        }).build();
+
+        mapping.getReader(Friend.class);
+        mapping.getReader(Friend.class);
+
+        assertThat(calls[0]).isEqualTo(2);
+    }
 }
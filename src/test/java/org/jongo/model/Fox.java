@@ -32,6 +32,10 @@ public class Fox extends Animal {
         this.color = color;
     }
 
+    public String getColor() {
+        return color;
+    }
+
     public void setGender(String gender) {
         this.gender = gender;
     }
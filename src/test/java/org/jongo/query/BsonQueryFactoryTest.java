@@ -19,9 +19,17 @@ package org.jongo.query;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
+import com.mongodb.DBRef;
 import com.mongodb.QueryBuilder;
+import org.bson.BSON;
+import org.bson.Transformer;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.jongo.bson.BsonDocument;
+import org.jongo.bson.TypedDBList;
 import org.jongo.marshall.jackson.JacksonEngine;
 import org.jongo.marshall.jackson.configuration.Mapping;
 import org.jongo.model.Friend;
@@ -31,6 +39,12 @@ import org.junit.Test;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -175,6 +189,50 @@ public class BsonQueryFactoryTest {
         assertThat(query.get("bytes")).isEqualTo("Robert");
     }
 
+    @Test
+    public void shouldSerializeObjectSerializedAsAPrimitiveOnlyOnce() throws Exception {
+
+        PrimitiveJsonSerializer serializer = new PrimitiveJsonSerializer();
+        Mapping mapping = new Mapping.Builder().addSerializer(Friend.class, serializer).build();
+        factory = new BsonQueryFactory(new JacksonEngine(mapping));
+
+        factory.createQuery("{name:#}", new Friend("Robert"));
+        DBObject query = factory.createQuery("{name:#}", new Friend("John")).toDBObject();
+
+        assertThat(query.get("name")).isEqualTo("John");
+        assertThat(serializer.calls).isEqualTo(3);
+    }
+
+    @Test
+    public void canHandleInstancesSerializedAsDocumentsOrPrimitives() throws Exception {
+
+        Mapping mapping = new Mapping.Builder().addSerializer(Friend.class, new AddresslessAsPrimitiveSerializer()).build();
+        factory = new BsonQueryFactory(new JacksonEngine(mapping));
+
+        DBObject document = factory.createQuery("{friend:#}", new Friend("John", "Wall Street")).toDBObject();
+        DBObject primitive = factory.createQuery("{friend:#}", new Friend("Robert")).toDBObject();
+
+        assertThat(document.get("friend")).isEqualTo(new BasicDBObject("name", "John"));
+        assertThat(primitive.get("friend")).isEqualTo("Robert");
+    }
+
+    @Test
+    public void shouldMarshallDocumentWhoseSizeIsAMultipleOf256OnlyOnce() throws Exception {
+
+        DocumentJsonSerializer serializer = new DocumentJsonSerializer();
+        JacksonEngine engine = new JacksonEngine(new Mapping.Builder().addSerializer(Friend.class, serializer).build());
+        factory = new BsonQueryFactory(engine);
+        String name = new String(new char[256 - engine.marshall(new Friend("")).getSize()]).replace('\0', 'a');
+        serializer.calls = 0;
+
+        DBObject first = factory.createQuery("{friend:#}", new Friend(name)).toDBObject();
+        DBObject second = factory.createQuery("{friend:#}", new Friend("John")).toDBObject();
+
+        assertThat(first.get("friend")).isEqualTo(new BasicDBObject("name", name));
+        assertThat(second.get("friend")).isEqualTo(new BasicDBObject("name", "John"));
+        assertThat(serializer.calls).isEqualTo(2);
+    }
+
     @Test
     public void shouldBindKeyParameter() throws Exception {
 
@@ -233,11 +291,283 @@ public class BsonQueryFactoryTest {
         assertThat(query.toDBObject()).isEqualTo(QueryBuilder.start("name").is("John").get());
     }
 
+    @Test
+    public void shouldReuseCompiledTemplate() throws Exception {
+
+        BsonQueryFactory bsonFactory = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping()));
+
+        bsonFactory.createQuery("{id:#}", 123);
+        Query query = bsonFactory.createQuery("{id:#}", 456);
+
+        assertThat(query.toDBObject()).isEqualTo(new BasicDBObject("id", 456));
+        assertThat(bsonFactory.getTemplateCache().getMissCount()).isEqualTo(1);
+        assertThat(bsonFactory.getTemplateCache().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotShareQueriesCreatedFromTheSameTemplate() throws Exception {
+
+        DBObject first = factory.createQuery("{a: {b: #}, c: 'd'}", 1).toDBObject();
+        ((DBObject) first.get("a")).put("b", 2);
+        first.removeField("c");
+
+        DBObject second = factory.createQuery("{a: {b: #}, c: 'd'}", 1).toDBObject();
+
+        assertThat(second.get("c")).isEqualTo("d");
+        assertThat(((DBObject) second.get("a")).get("b")).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldApplyDecodingHooksOnEachCall() throws Exception {
+
+        factory.createQuery("{a: #}", 1);
+        BSON.addDecodingHook(BasicDBObject.class, new Transformer() {
+            public Object transform(Object o) {
+                return new BasicDBObject("hooked", true);
+            }
+        });
+        DBObject hooked;
+        try {
+            hooked = factory.createQuery("{a: #}", 1).toDBObject();
+        } finally {
+            BSON.clearDecodingHooks();
+        }
+        DBObject unhooked = factory.createQuery("{a: #}", 1).toDBObject();
+
+        assertThat(hooked).isEqualTo(new BasicDBObject("hooked", true));
+        assertThat(unhooked).isEqualTo(new BasicDBObject("a", 1));
+    }
+
+    @Test
+    public void shouldBindParameterIntoSpecialObject() throws Exception {
+
+        ObjectId id = ObjectId.get();
+
+        factory.createQuery("{_id:{$oid:#}}", id.toString());
+        Query query = factory.createQuery("{_id:{$oid:#}}", id.toString());
+
+        assertThat(query.toDBObject()).isEqualTo(new BasicDBObject("_id", id));
+    }
+
+    @Test
+    public void shouldConvertBinaryAndReferenceSpecialObjects() throws Exception {
+
+        ObjectId id = ObjectId.get();
+
+        DBObject dbo = factory.createQuery("{data: {$binary: 'YWJjZGU=', $type: 0}, friend: {$ref: 'friends', $id: #}}", id).toDBObject();
+
+        assertThat(dbo.get("data")).isEqualTo(new Binary((byte) 0, "abcde".getBytes(StandardCharsets.US_ASCII)));
+        assertThat(((DBRef) dbo.get("friend")).getCollectionName()).isEqualTo("friends");
+        assertThat(((DBRef) dbo.get("friend")).getId()).isEqualTo(id);
+    }
+
+    @Test
+    public void shouldBindKeyParameterFromCachedTemplate() throws Exception {
+
+        factory.createQuery("{#: 123}", "id");
+        Query query = factory.createQuery("{#: 123}", "name");
+
+        assertThat(query.toDBObject()).isEqualTo(QueryBuilder.start("name").is(123).get());
+    }
+
+    @Test
+    public void canWriteQueryStraightIntoBson() throws Exception {
+
+        QueryFactory bsonFactory = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping())).withBsonOutput();
+
+        DBObject dbo = bsonFactory.createQuery("{ a: #, b: { c: #, d: [#, 'e']}}", 1, "hello", new Friend("John")).toDBObject();
+
+        assertThat(dbo).isInstanceOf(BsonDocument.class);
+        assertThat(dbo.toString()).isEqualTo(factory.createQuery("{ a: #, b: { c: #, d: [#, 'e']}}", 1, "hello", new Friend("John")).toDBObject().toString());
+    }
+
+    @Test
+    public void shouldKeepArrayQueriesAsDBObjectWithBsonOutput() throws Exception {
+
+        QueryFactory bsonFactory = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping())).withBsonOutput();
+
+        DBObject dbo = bsonFactory.createQuery("[{a: #}, {b: 2}]", 1).toDBObject();
+
+        assertThat(dbo).isInstanceOf(BasicDBList.class);
+    }
+
+    @Test
+    public void canBindPreparedQuery() throws Exception {
+
+        PreparedQuery preparedQuery = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping())).prepare("{id:#, name:#}");
+
+        Query query = preparedQuery.bind(123, "John");
+
+        assertThat(preparedQuery.getParameterCount()).isEqualTo(2);
+        assertThat(query.toDBObject()).isEqualTo(QueryBuilder.start("id").is(123).and("name").is("John").get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToPrepareInvalidQuery() throws Exception {
+
+        new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping())).prepare("{invalid");
+    }
+
+    @Test
+    public void shouldBindValueFollowingAnObjectInAnArray() throws Exception {
+
+        Query query = factory.createQuery("{a: [{b: 1}, #]}", "test");
+
+        DBObject expected = new BasicDBObject("a", Arrays.asList(new BasicDBObject("b", 1), "test"));
+        assertThat(query.toDBObject().toString()).isEqualTo(expected.toString());
+    }
+
+    @Test
+    public void canCreateQueryWithShellSyntax() throws Exception {
+
+        ObjectId id = new ObjectId();
+
+        DBObject dbo = factory.createQuery("{_id: ObjectId(#), name: /^jo/i, date: ISODate('1970-01-01T00:00:00.001Z')}", id.toString()).toDBObject();
+
+        assertThat(dbo.get("_id")).isEqualTo(id);
+        assertThat(((Pattern) dbo.get("name")).pattern()).isEqualTo("^jo");
+        assertThat(((Pattern) dbo.get("name")).flags()).isEqualTo(Pattern.CASE_INSENSITIVE);
+        assertThat(dbo.get("date")).isEqualTo(new Date(1));
+    }
+
+    @Test
+    public void canUseCustomQueryParser() throws Exception {
+
+        factory = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping()), new QueryParser() {
+            public Object parse(String query) {
+                return new BasicDBObject("parsed", query);
+            }
+        });
+
+        DBObject dbo = factory.createQuery("{a: 1}").toDBObject();
+
+        assertThat(dbo.get("parsed")).isEqualTo("{a: 1}");
+    }
+
+    @Test
+    public void canWriteParameterIntoSpecialObjectStraightIntoBson() throws Exception {
+
+        ObjectId id = new ObjectId();
+        BsonQueryFactory bsonFactory = new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping())).withBsonOutput();
+
+        DBObject dbo = bsonFactory.createQuery("{_id: {$oid: #}, name: 'John'}", id.toString()).toDBObject();
+
+        assertThat(dbo.get("_id")).isEqualTo(id);
+        assertThat(dbo.get("name")).isEqualTo("John");
+    }
+
+    @Test
+    public void shouldBindHomogeneousCollectionWithoutMarshallingEachElement() throws Exception {
+
+        DBObject dbo = factory.createQuery("{_id: {$in: #}}", Arrays.asList(1L, null, 3L)).toDBObject();
+
+        DBObject in = (DBObject) ((DBObject) dbo.get("_id")).get("$in");
+        assertThat(in).isInstanceOf(TypedDBList.class);
+        assertThat(((TypedDBList) in).getElementType()).isEqualTo(Long.class);
+        assertThat(in).isEqualTo(Arrays.asList(1L, null, 3L));
+    }
+
+    @Test
+    public void shouldBindArrayOfPrimitives() throws Exception {
+
+        ObjectId id = new ObjectId();
+
+        DBObject dbo = factory.createQuery("{_id: {$in: #}}", (Object) new ObjectId[]{id}).toDBObject();
+
+        DBObject in = (DBObject) ((DBObject) dbo.get("_id")).get("$in");
+        assertThat(((TypedDBList) in).getElementType()).isEqualTo(ObjectId.class);
+        assertThat(in).isEqualTo(Arrays.asList(id));
+    }
+
+    @Test
+    public void shouldMarshallEachElementOfHeterogeneousCollection() throws Exception {
+
+        DBObject dbo = factory.createQuery("{a: #}", Arrays.asList(1L, new Friend("John"))).toDBObject();
+
+        BasicDBList list = (BasicDBList) dbo.get("a");
+        assertThat(list).isNotInstanceOf(TypedDBList.class);
+        assertThat(((DBObject) list.get(1)).get("name")).isEqualTo("John");
+    }
+
+    @Test
+    public void canBindNamedParametersFromMap() throws Exception {
+
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("name", "John");
+        parameters.put("age", 18);
+
+        Query query = factory.createQuery("{name: :name, age: {$gt: :age}, alias: :name}", parameters);
+
+        DBObject expected = new BasicDBObject("name", "John").append("age", new BasicDBObject("$gt", 18)).append("alias", "John");
+        assertThat(query.toDBObject()).isEqualTo(expected);
+    }
+
+    @Test
+    public void canBindNamedParametersFromBean() throws Exception {
+
+        Query query = factory.createQuery("{name: :name, address: :address}", new Friend("John", "22 Wall Street Avenue"));
+
+        assertThat(query.toDBObject()).isEqualTo(QueryBuilder.start("name").is("John").and("address").is("22 Wall Street Avenue").get());
+    }
+
+    @Test
+    public void canPrepareQueryWithNamedParameters() throws Exception {
+
+        PreparedQuery preparedQuery = ((PreparableQueryFactory) factory).prepare("{name: :name}");
+
+        Query query = preparedQuery.bind(Collections.singletonMap("name", "John"));
+
+        assertThat(preparedQuery.getParameterCount()).isEqualTo(1);
+        assertThat(query.toDBObject()).isEqualTo(new BasicDBObject("name", "John"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenNamedParameterIsMissing() throws Exception {
+
+        factory.createQuery("{name: :name, age: :age}", Collections.singletonMap("name", "John"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenNamedParametersAreNotPassedAsASingleHolder() throws Exception {
+
+        factory.createQuery("{name: :name}", "John", "Peter");
+    }
+
     private static class PrimitiveJsonSerializer extends JsonSerializer<Friend> {
 
+        private int calls;
+
         @Override
         public void serialize(Friend friend, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            calls++;
             jgen.writeString(friend.getName());
         }
     }
+
+    private static class DocumentJsonSerializer extends JsonSerializer<Friend> {
+
+        private int calls;
+
+        @Override
+        public void serialize(Friend friend, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            calls++;
+            jgen.writeStartObject();
+            jgen.writeStringField("name", friend.getName());
+            jgen.writeEndObject();
+        }
+    }
+
+    private static class AddresslessAsPrimitiveSerializer extends JsonSerializer<Friend> {
+
+        @Override
+        public void serialize(Friend friend, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            if (friend.getAddress() == null) {
+                jgen.writeString(friend.getName());
+            } else {
+                jgen.writeStartObject();
+                jgen.writeStringField("name", friend.getName());
+                jgen.writeEndObject();
+            }
+        }
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import com.mongodb.BasicDBList;
+import com.mongodb.DBObject;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JacksonQueryParserTest {
+
+    private final JacksonQueryParser parser = new JacksonQueryParser();
+
+    @Test
+    public void canParseJson() throws Exception {
+
+        DBObject dbo = (DBObject) parser.parse("{\"a\": 1, \"b\": 3000000000, \"c\": 1.5, \"d\": [true, null], \"e\": \"f\"}");
+
+        assertThat(dbo.get("a")).isEqualTo(1);
+        assertThat(dbo.get("b")).isEqualTo(3000000000L);
+        assertThat(dbo.get("c")).isEqualTo(1.5);
+        assertThat(((BasicDBList) dbo.get("d")).get(0)).isEqualTo(true);
+        assertThat(((BasicDBList) dbo.get("d")).get(1)).isNull();
+        assertThat(dbo.get("e")).isEqualTo("f");
+    }
+
+    @Test
+    public void canParseUnquotedKeysAndSingleQuotedStrings() throws Exception {
+
+        DBObject dbo = (DBObject) parser.parse("{coordinate.lat: 'it\\'s', $set : {a-b:1}}");
+
+        assertThat(dbo.get("coordinate.lat")).isEqualTo("it's");
+        assertThat(((DBObject) dbo.get("$set")).get("a-b")).isEqualTo(1);
+    }
+
+    @Test
+    public void canParseShellFunctions() throws Exception {
+
+        DBObject dbo = (DBObject) parser.parse("{_id: ObjectId('47cc67093475061e3d95369d'), date: ISODate(\"2012-01-01T00:00:00.000Z\"), n: NumberLong(5)}");
+
+        assertThat(((DBObject) dbo.get("_id")).get("$oid")).isEqualTo("47cc67093475061e3d95369d");
+        assertThat(((DBObject) dbo.get("date")).get("$date")).isEqualTo("2012-01-01T00:00:00.000Z");
+        assertThat(((DBObject) dbo.get("n")).get("$numberLong")).isEqualTo(5);
+    }
+
+    @Test
+    public void canParseRegularExpression() throws Exception {
+
+        DBObject dbo = (DBObject) parser.parse("{name: /^jo\\/h\\d\"n/i}");
+
+        DBObject regex = (DBObject) dbo.get("name");
+        assertThat(regex.get("$regex")).isEqualTo("^jo/h\\d\"n");
+        assertThat(regex.get("$options")).isEqualTo("i");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailToParseInvalidQuery() throws Exception {
+
+        parser.parse("{invalid}");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreparedQueriesTest {
+
+    private final QueryFactory factory = new QueryFactory() {
+        public Query createQuery(String query, Object... parameters) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    public void shouldCountPositionalParametersOfDeferredQuery() throws Exception {
+
+        PreparedQuery query = PreparedQueries.prepare(factory, "{a: #, b: {$in: [#, #]}}");
+
+        assertThat(query.getParameterCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldCountNamedParametersOfDeferredQueryAsOneHolder() throws Exception {
+
+        PreparedQuery query = PreparedQueries.prepare(factory, "{a: :min, b: :max}");
+
+        assertThat(query.getParameterCount()).isEqualTo(1);
+    }
+}
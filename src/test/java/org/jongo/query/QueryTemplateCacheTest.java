@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryTemplateCacheTest {
+
+    @Test
+    public void shouldCountHitsAndMisses() throws Exception {
+
+        QueryTemplateCache cache = new QueryTemplateCache();
+
+        cache.get("{a:#}", "#");
+        cache.put("{a:#}", "#", QueryTemplate.dynamic("{a:#}", QueryTokens.scan("{a:#}", "#")));
+        QueryTemplate template = cache.get("{a:#}", "#");
+
+        assertThat(template).isNotNull();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldKeyTemplatesByToken() throws Exception {
+
+        QueryTemplateCache cache = new QueryTemplateCache();
+
+        cache.put("{a:#}", "#", QueryTemplate.dynamic("{a:#}", QueryTokens.scan("{a:#}", "#")));
+
+        assertThat(cache.get("{a:#}", "@")).isNull();
+    }
+
+    @Test
+    public void shouldEvictEldestTemplateWhenFull() throws Exception {
+
+        QueryTemplateCache cache = new QueryTemplateCache(2);
+
+        cache.put("{a:#}", "#", QueryTemplate.dynamic("{a:#}", QueryTokens.scan("{a:#}", "#")));
+        cache.put("{b:#}", "#", QueryTemplate.dynamic("{b:#}", QueryTokens.scan("{b:#}", "#")));
+        cache.put("{c:#}", "#", QueryTemplate.dynamic("{c:#}", QueryTokens.scan("{c:#}", "#")));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.get("{a:#}", "#")).isNull();
+        assertThat(cache.get("{c:#}", "#")).isNotNull();
+    }
+
+    @Test
+    public void canBeDisabled() throws Exception {
+
+        QueryTemplateCache cache = new QueryTemplateCache(0);
+
+        cache.put("{a:#}", "#", QueryTemplate.dynamic("{a:#}", QueryTokens.scan("{a:#}", "#")));
+
+        assertThat(cache.size()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.query;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryTokensTest {
+
+    @Test
+    public void shouldFindValueTokens() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("{a: #, b: {c: [#, #]}}", "#");
+
+        assertThat(tokens.size()).isEqualTo(3);
+        assertThat(tokens.getPosition(0)).isEqualTo(4);
+        assertThat(tokens.getPosition(1)).isEqualTo(15);
+        assertThat(tokens.getPosition(2)).isEqualTo(18);
+        assertThat(tokens.hasKeys()).isFalse();
+    }
+
+    @Test
+    public void shouldFindKeyTokens() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("{#: 1, a: 'b', #: 2, scores.#: 3}", "#");
+
+        assertThat(tokens.size()).isEqualTo(3);
+        assertThat(tokens.isKey(0)).isTrue();
+        assertThat(tokens.isKey(1)).isTrue();
+        assertThat(tokens.isKey(2)).isTrue();
+        assertThat(tokens.hasKeys()).isTrue();
+    }
+
+    @Test
+    public void shouldFindValueTokenFollowingAnObjectInAnArray() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("{a: [{b: 1}, #]}", "#");
+
+        assertThat(tokens.size()).isEqualTo(1);
+        assertThat(tokens.isKey(0)).isFalse();
+    }
+
+    @Test
+    public void shouldFindRootValueToken() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("#", "#");
+
+        assertThat(tokens.size()).isEqualTo(1);
+        assertThat(tokens.isKey(0)).isFalse();
+    }
+
+    @Test
+    public void shouldSubstituteTokensFoundInQuotedStrings() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("{a: 'it\\'s #', b: \"#\"}", "#");
+
+        assertThat(tokens.size()).isEqualTo(2);
+        assertThat(tokens.isKey(0)).isTrue();
+        assertThat(tokens.isKey(1)).isTrue();
+    }
+
+    @Test
+    public void canUseCustomToken() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("{a: @@, @@: 1}", "@@");
+
+        assertThat(tokens.size()).isEqualTo(2);
+        assertThat(tokens.isKey(0)).isFalse();
+        assertThat(tokens.isKey(1)).isTrue();
+    }
+
+    @Test
+    public void shouldScanManyTokens() throws Exception {
+
+        StringBuilder query = new StringBuilder("{$or: [");
+        for (int i = 0; i < 1000; i++) {
+            query.append(i == 0 ? "" : ", ").append("{a: #}");
+        }
+        query.append("]}");
+
+        QueryTokens tokens = QueryTokens.scan(query.toString(), "#");
+
+        assertThat(tokens.size()).isEqualTo(1000);
+        assertThat(tokens.hasKeys()).isFalse();
+    }
+
+    @Test
+    public void shouldFindNamedParametersInValuePosition() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan("{a: :name, b: {$in: [:min, :max]}, 'c:d': ':quoted'}", "#");
+
+        assertThat(tokens.size()).isEqualTo(3);
+        assertThat(tokens.getName(0)).isEqualTo("name");
+        assertThat(tokens.getPosition(0)).isEqualTo(4);
+        assertThat(tokens.getEnd(0)).isEqualTo(9);
+        assertThat(tokens.getName(1)).isEqualTo("min");
+        assertThat(tokens.getName(2)).isEqualTo("max");
+        assertThat(tokens.hasNames()).isTrue();
+        assertThat(tokens.hasKeys()).isFalse();
+    }
+
+    @Test
+    public void shouldFindRootNamedParameter() throws Exception {
+
+        QueryTokens tokens = QueryTokens.scan(" :query", "#");
+
+        assertThat(tokens.size()).isEqualTo(1);
+        assertThat(tokens.getName(0)).isEqualTo("query");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotMixPositionalAndNamedParameters() throws Exception {
+
+        QueryTokens.scan("{a: :name, b: #}", "#");
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.repository;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.ReadPreference;
+import org.jongo.MongoCollection;
+import org.jongo.marshall.jackson.JacksonMapper;
+import org.jongo.model.Friend;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RepositoriesTest {
+
+    private DBCollection mockedDBCollection = Mockito.mock(DBCollection.class);
+    private MongoCollection collection;
+
+    @Before
+    public void setUp() throws Exception {
+        Mockito.when(mockedDBCollection.getName()).thenReturn("friends");
+        collection = new MongoCollection(mockedDBCollection, Mockito.mock(DBCollection.class), new JacksonMapper.Builder().build());
+    }
+
+    @Test
+    public void canCountWithBoundParameters() throws Exception {
+
+        DBObject expectedQuery = new BasicDBObject("name", "John").append("age", new BasicDBObject("$gt", 18));
+        Mockito.when(mockedDBCollection.getCount(Matchers.eq(expectedQuery), Matchers.isNull(DBObject.class), Matchers.any(ReadPreference.class))).thenReturn(2L);
+
+        Friends friends = Repositories.create(Friends.class, collection);
+
+        assertThat(friends.countOlderThan("John", 18)).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldImplementObjectMethods() throws Exception {
+
+        Friends friends = Repositories.create(Friends.class, collection);
+
+        assertThat(friends).isEqualTo(friends);
+        assertThat(friends.hashCode()).isEqualTo(System.identityHashCode(friends));
+        assertThat(friends.toString()).isEqualTo("Friends{collection=friends}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenMethodIsNotAnnotated() throws Exception {
+
+        Repositories.create(NotAnnotated.class, collection);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWhenParametersDoNotMatchQuery() throws Exception {
+
+        Repositories.create(MissingParameter.class, collection);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnInvalidQuery() throws Exception {
+
+        Repositories.create(InvalidQuery.class, collection);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailOnUnsupportedReturnType() throws Exception {
+
+        Repositories.create(UnsupportedReturnType.class, collection);
+    }
+
+    interface Friends {
+
+        @Find("{address: #}")
+        List<Friend> findByAddress(String address);
+
+        @Count("{name: #, age: {$gt: #}}")
+        int countOlderThan(String name, int age);
+
+        @Remove("{name: #}")
+        void removeByName(String name);
+    }
+
+    interface NotAnnotated {
+
+        List<Friend> findByAddress(String address);
+    }
+
+    interface MissingParameter {
+
+        @FindOne("{name: #, address: #}")
+        Friend findOne(String name);
+    }
+
+    interface InvalidQuery {
+
+        @Count("{name: #")
+        long count(String name);
+    }
+
+    interface UnsupportedReturnType {
+
+        @Find("{name: #}")
+        Friend find(String name);
+    }
+}
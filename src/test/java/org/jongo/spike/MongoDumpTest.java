@@ -30,6 +30,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -67,4 +69,15 @@ public class MongoDumpTest extends JongoTestCase {
 
         assertThat(collection.count()).isEqualTo(1000);
     }
+
+    @Test
+    public void importBsonDumpFileWithoutDecodingDocuments() throws Exception {
+
+        Path bsonDump = Paths.get(getClass().getClassLoader().getResource("1000friends.bson").toURI());
+
+        long imported = collection.withWriteConcern(WriteConcern.SAFE).importDump(bsonDump);
+
+        assertThat(imported).isEqualTo(1000);
+        assertThat(collection.count()).isEqualTo(1000);
+    }
 }
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import com.mongodb.DBObject;
+import org.jongo.marshall.jackson.JacksonEngine;
+import org.jongo.marshall.jackson.configuration.Mapping;
+import org.jongo.query.BsonQueryFactory;
+import org.jongo.query.PreparedQuery;
+import org.jongo.query.Query;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InstrumentedQueryFactoryTest {
+
+    private QueryShapeRegistry registry;
+    private InstrumentedQueryFactory factory;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = new QueryShapeRegistry();
+        factory = new InstrumentedQueryFactory(new BsonQueryFactory(new JacksonEngine(Mapping.defaultMapping())), registry);
+    }
+
+    @Test
+    public void shouldGroupQueriesByShape() throws Exception {
+
+        factory.createQuery("{name: 'John', age: #}", 18);
+        factory.createQuery("{name:'Robert',age:#}", 21);
+        factory.createQuery("{name: #}", "Peter");
+
+        assertThat(registry.getShapeCount()).isEqualTo(2);
+        assertThat(registry.getStats("{name: 'Jack', age: #}").getCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldCreateQueriesCarryingTheirStats() throws Exception {
+
+        Query query = factory.createQuery("{age: #}", 18);
+
+        DBObject dbObject = query.toDBObject();
+
+        assertThat(dbObject.get("age")).isEqualTo(18);
+        assertThat(((InstrumentedQuery) query).getStats()).isSameAs(registry.getStats("{age: #}"));
+    }
+
+    @Test
+    public void shouldRecordBindingOfPreparedQueries() throws Exception {
+
+        PreparedQuery prepared = factory.prepare("{age: #}");
+
+        Query query = prepared.bind(18);
+        prepared.bind(21);
+
+        assertThat(query.toDBObject().get("age")).isEqualTo(18);
+        assertThat(registry.getStats("{age: #}").getCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldSortShapesByExecutionTime() throws Exception {
+
+        registry.getStats("{a: #}").recordExecution(10);
+        registry.getStats("{b: #}").recordExecution(1000);
+
+        String[] summaries = registry.getTopShapeSummaries(1);
+
+        assertThat(summaries).hasSize(1);
+        assertThat(summaries[0]).startsWith("{b:#}");
+    }
+
+    @Test
+    public void shouldCountQueriesOfShapesBeyondTheMaximum() throws Exception {
+
+        registry = new QueryShapeRegistry("#", 1);
+
+        registry.getStats("{a: #}").recordExecution(10);
+        registry.getStats("{b: #}").recordExecution(10);
+        registry.getStats("{b: #}").recordExecution(10);
+
+        assertThat(registry.getShapeCount()).isEqualTo(1);
+        assertThat(registry.getDroppedQueryCount()).isEqualTo(2);
+        assertThat(registry.getShapeSummaries()).hasSize(2);
+        assertThat(registry.getShapeSummaries()[1]).startsWith("2 queries not recorded");
+    }
+}
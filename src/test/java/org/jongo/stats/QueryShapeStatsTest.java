@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryShapeStatsTest {
+
+    @Test
+    public void shouldAccumulateCounters() throws Exception {
+
+        QueryShapeStats stats = new QueryShapeStats("{a:#}");
+
+        stats.recordParse(1000);
+        stats.recordParse(2000);
+        stats.recordExecution(5000);
+        stats.recordDocument(100);
+        stats.recordDocument(50);
+
+        assertThat(stats.getCallCount()).isEqualTo(2);
+        assertThat(stats.getParseTime(TimeUnit.NANOSECONDS)).isEqualTo(3000);
+        assertThat(stats.getExecutionCount()).isEqualTo(1);
+        assertThat(stats.getExecutionTime(TimeUnit.MICROSECONDS)).isEqualTo(5);
+        assertThat(stats.getDocumentCount()).isEqualTo(2);
+        assertThat(stats.getDecodedBytes()).isEqualTo(150);
+    }
+
+    @Test
+    public void shouldApproximatePercentilesWithPowerOfTwoBuckets() throws Exception {
+
+        QueryShapeStats stats = new QueryShapeStats("{a:#}");
+
+        for (int i = 0; i < 99; i++) {
+            stats.recordExecution(100);
+        }
+        stats.recordExecution(1000000);
+
+        assertThat(stats.getExecutionTimePercentile(50, TimeUnit.NANOSECONDS)).isEqualTo(127);
+        assertThat(stats.getExecutionTimePercentile(99, TimeUnit.NANOSECONDS)).isEqualTo(127);
+        assertThat(stats.getExecutionTimePercentile(100, TimeUnit.NANOSECONDS)).isEqualTo(1048575);
+    }
+
+    @Test
+    public void shouldReturnZeroPercentileWithoutExecution() throws Exception {
+
+        QueryShapeStats stats = new QueryShapeStats("{a:#}");
+
+        assertThat(stats.getExecutionTimePercentile(99, TimeUnit.NANOSECONDS)).isEqualTo(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidPercentile() throws Exception {
+
+        new QueryShapeStats("{a:#}").getExecutionTimePercentile(101, TimeUnit.NANOSECONDS);
+    }
+}
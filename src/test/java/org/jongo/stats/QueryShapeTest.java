@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2011 Benoit GUEROUT <bguerout at gmail dot com> and Yves AMSELLEM <amsellem dot yves at gmail dot com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jongo.stats;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryShapeTest {
+
+    @Test
+    public void shouldReplaceLiteralsAndKeepTokens() throws Exception {
+
+        String shape = QueryShape.normalize("{name: 'John', age: {$gt: #}, active: true}", "#");
+
+        assertThat(shape).isEqualTo("{name:?,age:{$gt:#},active:?}");
+    }
+
+    @Test
+    public void shouldCollapseLiteralsInArrays() throws Exception {
+
+        String shape = QueryShape.normalize("{tags: {$in: ['a', 'b', 3]}}", "#");
+
+        assertThat(shape).isEqualTo("{tags:{$in:[?]}}");
+    }
+
+    @Test
+    public void shouldGiveSameShapeToQueriesWithDifferentLiterals() throws Exception {
+
+        String shape1 = QueryShape.normalize("{_id: ObjectId('47cc67093475061e3d95369d'), 'address.city': \"Paris\"}", "#");
+        String shape2 = QueryShape.normalize("{_id:ObjectId('57cc67093475061e3d95369d'),'address.city':'Lyon'}", "#");
+
+        assertThat(shape1).isEqualTo("{_id:ObjectId(?),'address.city':?}");
+        assertThat(shape2).isEqualTo(shape1);
+    }
+
+    @Test
+    public void shouldReplaceRegex() throws Exception {
+
+        String shape = QueryShape.normalize("{name: /^jo.*/i}", "#");
+
+        assertThat(shape).isEqualTo("{name:?}");
+    }
+}